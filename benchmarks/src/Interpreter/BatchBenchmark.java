@@ -0,0 +1,78 @@
+package Interpreter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Measures files compiled per second by BatchCompiler from 1 to N threads, and with a virtual thread per file
+ * where the JVM has them. Writes the files to a temporary directory first; one in ten has a syntax error, so
+ * every run should report the same number of failures. Runs are timed after a few warm-up runs on one thread.
+ * Usage: BatchBenchmark [files] [expressionsPerFile] [maxThreads], defaults to 2000 files, 50 expressions and
+ * one thread per core.
+ */
+public class BatchBenchmark {
+
+    private static final String[] OPERATORS = {"+", "-", "*", "/", "**"};
+    private static final String[] OPERANDS = {"1", "2", "3.5", "0.25", "-4", "~7", "(2 - 1)"};
+
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int expressions = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int maxThreads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        Path directory = Files.createTempDirectory("batch");
+        Random random = new Random(3);
+        List<String> files = new ArrayList<>();
+        for(int i = 0; i < count; i++){
+            StringBuilder code = new StringBuilder();
+            for(int j = 0; j < expressions; j++){
+                code.append(OPERANDS[random.nextInt(OPERANDS.length)]);
+                for(int k = 0; k < 4; k++){
+                    code.append(' ').append(OPERATORS[random.nextInt(OPERATORS.length)]).append(' ').append(random.nextInt(10));
+                }
+                code.append(i % 10 == 9 && j == expressions / 2 ? " +;\n" : ";\n");
+            }
+            Path file = directory.resolve(String.format("file%05d.lox", i));
+            Files.write(file, code.toString().getBytes());
+            files.add(file.toString());
+        }
+        System.out.printf("%d files of %d expressions, %d cores%n", count, expressions,
+                Runtime.getRuntime().availableProcessors());
+
+        for(int i = 0; i < 5; i++){     //Warm-up.
+            new BatchCompiler(new Flags(), 1).compile(files);
+        }
+
+        List<Integer> counts = new ArrayList<>();
+        for(int threads = 1; threads <= maxThreads; threads++){
+            counts.add(threads);
+        }
+        if(new BatchCompiler(new Flags(), 0).usesVirtualThreads()){
+            counts.add(0);
+        }
+        for(int threads: counts){
+            BatchCompiler compiler = new BatchCompiler(new Flags(), threads);
+            long begin = System.nanoTime();
+            List<BatchCompiler.Result> results = compiler.compile(files);
+            double seconds = (System.nanoTime() - begin) / 1e9;
+            int failed = 0;
+            int errors = 0;
+            for(BatchCompiler.Result result: results){
+                failed += result.exitCode != 0 ? 1 : 0;
+                errors += result.errors.size();
+            }
+            System.out.printf("%-9s %8.1f files/s, %d failed, %d errors%n",
+                    threads == 0 ? "virtual" : threads + " threads", count / seconds, failed, errors);
+        }
+
+        try(Stream<Path> paths = Files.walk(directory)){
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
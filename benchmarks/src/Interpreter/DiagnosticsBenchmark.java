@@ -0,0 +1,64 @@
+package Interpreter;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * Times reporting and writing out tens of thousands of errors, from source where every line has a lexical or a
+ * syntax error and one block comment is never closed. Runs with every error kept, then with a limit.
+ * Output goes to a stream that only counts bytes. Each case is timed after a few warm-up rounds.
+ * Usage: DiagnosticsBenchmark [lines] [limit], defaults to 50000 lines and a limit of 100.
+ */
+public class DiagnosticsBenchmark {
+
+    public static void main(String[] args){
+        int lines = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+        int limit = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+
+        StringBuilder code = new StringBuilder();
+        for(int i = 0; i < lines; i++){
+            code.append(i % 2 == 0 ? "1 + @ 2;\n" : "3 * ;\n");
+        }
+        for(int i = 0; i < 200; i++){
+            code.append("/* /* */ /* */\n");
+        }
+        String source = code.toString();
+
+        run(source, 0);
+        run(source, limit);
+    }
+
+    private static void run(String source, int limit){
+        for(int round = 0; round < 8; round++){
+            long[] bytes = {0};
+            PrintStream out = new PrintStream(new OutputStream(){
+                @Override
+                public void write(int b){
+                    bytes[0]++;
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len){
+                    bytes[0] += len;
+                }
+            });
+            CompilationContext context = new CompilationContext(CompilationContext.current().locale, out, false);
+            if(limit > 0){
+                context.diagnostics.setLimit(limit);
+            }
+            long[] times = new long[3];
+            CompilationContext.run(context, () -> {
+                times[0] = System.nanoTime();
+                new Parser(new Lexer(source), false).parseAll();
+                times[1] = System.nanoTime();
+                CompileError.dump();
+                times[2] = System.nanoTime();
+            });
+            if(round == 7){
+                System.out.printf("%-10s %d errors: lex, parse and report %.1f ms, write %.1f ms, %.1f MB written%n",
+                        limit > 0 ? "limit " + limit : "no limit", context.diagnostics.count(),
+                        (times[1] - times[0]) / 1e6, (times[2] - times[1]) / 1e6, bytes[0] / 1048576.0);
+            }
+        }
+    }
+}
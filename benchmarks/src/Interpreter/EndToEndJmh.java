@@ -0,0 +1,62 @@
+package Interpreter;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Source code to results the way Main does it: the Lexer streams tokens into the Parser, and the default engine
+ * evaluates each expression. The evaluations counter is in top level expressions per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EndToEndJmh {
+
+    @Param({"numeric", "strings", "nested"})
+    public String workload;
+
+    private String source;
+    private final Engine engine = Engine.named(null);
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counts {
+        public long evaluations;
+
+        @Setup(Level.Iteration)
+        public void reset(){
+            evaluations = 0;
+        }
+    }
+
+    @Setup
+    public void setUp(){
+        source = JmhWorkloads.source(workload);
+    }
+
+    @Benchmark
+    public void compileAndRun(Counts counts, Blackhole results){
+        List<Expression> expressions = new Parser(new Lexer(source), false).parseAll();
+        for(Expression expression: expressions){
+            results.consume(engine.prepare(expression).run());
+        }
+        counts.evaluations += expressions.size();
+    }
+}
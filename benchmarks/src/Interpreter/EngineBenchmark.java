@@ -0,0 +1,190 @@
+package Interpreter;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the execution engines on arithmetic-heavy expressions, and checks that they all give the same values.
+ * Each expression is prepared once (e.g. compiled) and then run many times.
+ * Reports time and bytes allocated per node, the allocation as counted by the JVM for this thread.
+ * The numeric workload is all arithmetic on numbers, so every operator always sees the same types.
+ * The mixed workload combines numbers, Strings, Booleans and nil, so operators see many different types.
+ * Usage: EngineBenchmark [expressions] [iterations] [numeric|mixed] [engine...], defaults to 2000 expressions,
+ * 200 iterations, numeric and every engine.
+ */
+public class EngineBenchmark {
+
+    private static final String[] OPERATORS = {"+", "-", "*", "/", "**", "<<", ">>"};
+    private static final String[] OPERANDS = {"1", "2", "3.5", "0.25", "-4", "~7", "(2 - 1)"};
+
+    public static void main(String[] args){
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        boolean mixed = args.length > 2 && args[2].equals("mixed");
+        String[] names = args.length > 3 ? Arrays.copyOfRange(args, 3, args.length) : Engine.NAMES;
+
+        List<Expression> expressions = mixed ? generateMixed(count, new Random(3)) : generate(count, new Random(3));
+        int nodes = 0;
+        for(Expression expression: expressions){
+            nodes += size(expression);
+        }
+        System.out.printf("%s workload: %d expressions, %d nodes, %d iterations%n",
+                mixed ? "mixed" : "numeric", count, nodes, iterations);
+
+        List<Object> expected = null;
+        double baseline = 0;
+        for(String name: names){
+            Engine engine = Engine.named(name);
+
+            long prepareBegin = System.nanoTime();
+            List<Engine.Program> programs = new ArrayList<>();
+            for(Expression expression: expressions){
+                programs.add(engine.prepare(expression));
+            }
+            double prepareMs = (System.nanoTime() - prepareBegin) / 1e6;
+
+            List<Object> results = runAll(programs);
+            if(expected == null){
+                expected = results;
+            } else if(!expected.equals(results)){
+                System.out.println(name + ": RESULTS DIFFER from " + names[0]);
+            }
+
+            //Warm up before timing.
+            for(int i = 0; i < iterations / 4; i++){
+                runAll(programs);
+            }
+            long allocatedBefore = allocatedBytes();
+            long begin = System.nanoTime();
+            for(int i = 0; i < iterations; i++){
+                runAll(programs);
+            }
+            double nanosPerNode = (double) (System.nanoTime() - begin) / iterations / nodes;
+            double bytesPerNode = (double) (allocatedBytes() - allocatedBefore) / iterations / nodes;
+            engine.close();
+            if(baseline == 0){
+                baseline = nanosPerNode;
+            }
+            System.out.printf("%-8s prepare %8.2f ms, %6.2f ns per node, %5.2fx, %6.2f bytes allocated per node%n",
+                    name, prepareMs, nanosPerNode, baseline / nanosPerNode, bytesPerNode);
+        }
+    }
+
+    private static long allocatedBytes(){
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    static List<Object> runAll(List<Engine.Program> programs){
+        List<Object> results = new ArrayList<>(programs.size());
+        for(Engine.Program program: programs){
+            results.add(program.run());
+        }
+        return results;
+    }
+
+    /**
+     * Expressions of 10 to 40 operands, a quarter of them inside a comparison ternary.
+     */
+    static List<Expression> generate(int count, Random random){
+        StringBuilder builder = new StringBuilder();
+        for(int i = 0; i < count; i++){
+            int operands = 10 + random.nextInt(31);
+            StringBuilder expression = new StringBuilder(OPERANDS[random.nextInt(OPERANDS.length)]);
+            for(int j = 1; j < operands; j++){
+                expression.append(' ').append(OPERATORS[random.nextInt(OPERATORS.length)]).append(' ');
+                expression.append(OPERANDS[random.nextInt(OPERANDS.length)]);
+            }
+            if(i % 4 == 0){
+                builder.append("(").append(expression).append(") > 0 ? 1 + ").append(expression).append(" : 2;\n");
+            } else {
+                builder.append(expression).append(";\n");
+            }
+        }
+        TokenBuffer tokens = new Lexer(builder.toString()).lexBuffer();
+        return new Parser(tokens).parseAll();
+    }
+
+    /**
+     * Expressions that mix types but never fail, e.g. string concatenation next to comparisons and nil.
+     */
+    static List<Expression> generateMixed(int count, Random random){
+        StringBuilder builder = new StringBuilder();
+        for(int i = 0; i < count; i++){
+            builder.append(mixed(random, 'a', 5)).append(";\n");
+        }
+        TokenBuffer tokens = new Lexer(builder.toString()).lexBuffer();
+        return new Parser(tokens).parseAll();
+    }
+
+    /**
+     * @param type 'n' for a number, 's' a String, 'b' a Boolean, or 'a' anything.
+     * @param depth How much deeper the expression may nest.
+     */
+    private static String mixed(Random random, char type, int depth){
+        if(type == 'a'){
+            type = "nsbx".charAt(random.nextInt(4));
+        }
+        boolean leaf = depth == 0 || random.nextInt(4) == 0;
+        switch(type){
+            case 'n':
+                if(leaf){
+                    return OPERANDS[random.nextInt(OPERANDS.length)];
+                }
+                return "(" + mixed(random, 'n', depth - 1) + " " + OPERATORS[random.nextInt(OPERATORS.length)]
+                        + " " + mixed(random, 'n', depth - 1) + ")";
+            case 's':
+                if(leaf){
+                    return random.nextBoolean() ? "\"a\"" : "\"bc\"";
+                }
+                return "(" + mixed(random, random.nextBoolean() ? 's' : 'n', depth - 1) + " + "
+                        + mixed(random, 's', depth - 1) + ")";
+            case 'b':
+                if(leaf){
+                    return random.nextBoolean() ? "true" : "!nil";
+                }
+                if(random.nextBoolean()){
+                    return "(" + mixed(random, 'n', depth - 1) + " < " + mixed(random, 'n', depth - 1) + ")";
+                }
+                return "(" + mixed(random, 'a', depth - 1) + " == " + mixed(random, 'a', depth - 1) + ")";
+            default:
+                if(leaf){
+                    return "nil";
+                }
+                return "(" + mixed(random, 'b', depth - 1) + " ? " + mixed(random, 'a', depth - 1) + " : "
+                        + mixed(random, 'a', depth - 1) + ")";
+        }
+    }
+
+    static int size(Expression expression){
+        return expression.accept(new Expression.Visitor<Integer>() {
+            @Override
+            public Integer visitBinaryExpression(Expression.Binary expression){
+                return 1 + expression.left.accept(this) + expression.right.accept(this);
+            }
+
+            @Override
+            public Integer visitGroupingExpression(Expression.Grouping expression){
+                return 1 + expression.expression.accept(this);
+            }
+
+            @Override
+            public Integer visitLiteralExpression(Expression.Literal expression){
+                return 1;
+            }
+
+            @Override
+            public Integer visitUnaryExpression(Expression.Unary expression){
+                return 1 + expression.right.accept(this);
+            }
+
+            @Override
+            public Integer visitTernaryExpression(Expression.Ternary expression){
+                return 1 + expression.left.accept(this) + expression.center.accept(this) + expression.right.accept(this);
+            }
+        });
+    }
+}
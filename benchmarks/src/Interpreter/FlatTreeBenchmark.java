@@ -0,0 +1,85 @@
+package Interpreter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * Compares Expression trees with a FlatTree holding the same expressions: the heap each retains, and how fast
+ * each evaluates, the Expressions by the Interpreter. Also checks the FlatTree prints and evaluates the same.
+ * Usage: FlatTreeBenchmark [expressions] [iterations] [numeric|mixed], defaults to 50000 expressions,
+ * 20 iterations and numeric.
+ */
+public class FlatTreeBenchmark {
+
+    public static void main(String[] args){
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        boolean mixed = args.length > 2 && args[2].equals("mixed");
+
+        long baseline = usedHeap();
+        List<Expression> expressions = mixed ? EngineBenchmark.generateMixed(count, new Random(3))
+                : EngineBenchmark.generate(count, new Random(3));
+        long expressionBytes = usedHeap() - baseline;
+
+        int[] roots = new int[expressions.size()];
+        FlatTree tree = FlatTree.of(expressions, roots);
+        int nodes = tree.size();
+        System.out.printf("%s workload: %d expressions, %d nodes%n", mixed ? "mixed" : "numeric", count, nodes);
+
+        AstPrinter printer = new AstPrinter();
+        Interpreter interpreter = new Interpreter();
+        List<Object> expected = new ArrayList<>();
+        for(int i = 0; i < roots.length; i++){
+            Expression expression = expressions.get(i);
+            if(!printer.print(expression).equals(tree.print(roots[i]))){
+                System.out.println("PRINTED DIFFERENTLY: " + printer.print(expression));
+            }
+            expected.add(interpreter.evaluate(expression));
+        }
+
+        double treeNanos = 0;
+        for(int round = 0; round < 2; round++){     //The first round is warm-up.
+            long begin = System.nanoTime();
+            for(int i = 0; i < iterations; i++){
+                for(Expression expression: expressions){
+                    interpreter.evaluate(expression);
+                }
+            }
+            treeNanos = (double) (System.nanoTime() - begin) / iterations / nodes;
+        }
+
+        expressions = null;
+        long flatBytes = usedHeap() - baseline;
+
+        double flatNanos = 0;
+        for(int round = 0; round < 2; round++){
+            long begin = System.nanoTime();
+            for(int i = 0; i < iterations; i++){
+                for(int root: roots){
+                    tree.evaluate(root);
+                }
+            }
+            flatNanos = (double) (System.nanoTime() - begin) / iterations / nodes;
+        }
+        for(int i = 0; i < roots.length; i++){
+            if(!Objects.equals(expected.get(i), tree.evaluate(roots[i]))){
+                System.out.println("EVALUATED DIFFERENTLY: " + tree.print(roots[i]));
+            }
+        }
+
+        System.out.printf("%-12s retained %7.1f MB (%5.1f bytes/node)  %6.2f ns per node%n",
+                "Expression", expressionBytes / 1048576.0, expressionBytes / (double) nodes, treeNanos);
+        System.out.printf("%-12s retained %7.1f MB (%5.1f bytes/node)  %6.2f ns per node%n",
+                "FlatTree", flatBytes / 1048576.0, flatBytes / (double) nodes, flatNanos);
+    }
+
+    private static long usedHeap(){
+        for(int i = 0; i < 3; i++){
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,98 @@
+package Interpreter;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures the latency of single character edits to an IncrementalDocument,
+ * against lexing and parsing the whole document again, and checks that both give the same result.
+ * Usage: IncrementalBenchmark [lines] [edits], defaults to 50000 lines and 2000 edits.
+ */
+public class IncrementalBenchmark {
+
+    private static final String[] LINES = {
+            "(alpha + 3.25) * beta_12 - 7 >= 7 ? \"yes\" : \"no\";\n",
+            "!(epsilon >= .5) != zeta << 2 ** 3; // a comment\n",
+            "/* a block /* nested */ comment */ 1 + 2 * 3;\n",
+            "gamma |& delta ~& 12 - -4;\n",
+    };
+    private static final String INSERTS = "0123456789 +-*()ab;\"/\n";
+
+    public static void main(String[] args){
+        int lineCount = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+        int edits = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder();
+        for(int i = 0; i < lineCount; i++){
+            builder.append(LINES[random.nextInt(LINES.length)]);
+        }
+        KeywordTable keywords = KeywordTables.forLocale(CompilationContext.current().locale);
+        IncrementalDocument document = new IncrementalDocument(builder.toString(), keywords);
+        int literalSlots = document.tokens().literalSlots();
+
+        long[] latencies = new long[edits];
+        long relexed = 0;
+        long reparsed = 0;
+        for(int i = 0; i < edits; i++){
+            int offset = random.nextInt(document.code().length());
+            long begin = System.nanoTime();
+            if(random.nextBoolean()){
+                document.edit(offset, 0, String.valueOf(INSERTS.charAt(random.nextInt(INSERTS.length()))));
+            } else {
+                document.edit(offset, 1, "");
+            }
+            latencies[i] = System.nanoTime() - begin;
+            relexed += document.relexed();
+            reparsed += document.reparsed();
+        }
+
+        long fullBegin = System.nanoTime();
+        IncrementalDocument fresh = new IncrementalDocument(document.code(), keywords);
+        long full = System.nanoTime() - fullBegin;
+
+        Arrays.sort(latencies);
+        System.out.printf("%d lines, %d single character edits%n", lineCount, edits);
+        System.out.printf("incremental: median %.3f ms, p99 %.3f ms, max %.3f ms (%.1f tokens lexed, %.1f expressions parsed per edit)%n",
+                latencies[edits / 2] / 1e6, latencies[edits * 99 / 100] / 1e6, latencies[edits - 1] / 1e6,
+                relexed / (double) edits, reparsed / (double) edits);
+        System.out.printf("full re-lex and re-parse: %.3f ms%n", full / 1e6);
+        System.out.printf("%d errors, %d literal slots (%d before the edits)%n", document.errors().size(),
+                document.tokens().literalSlots(), literalSlots);
+        System.out.println(same(document, fresh) ? "incremental result matches a full re-parse"
+                : "MISMATCH between incremental and full re-parse");
+    }
+
+    private static boolean same(IncrementalDocument a, IncrementalDocument b){
+        TokenBuffer x = a.tokens();
+        TokenBuffer y = b.tokens();
+        if(x.size() != y.size()){
+            return false;
+        }
+        for(int i = 0; i < x.size(); i++){
+            if(x.type(i) != y.type(i) || x.start(i) != y.start(i) || x.end(i) != y.end(i)
+                    || x.line(i) != y.line(i) || x.pos(i) != y.pos(i)){
+                return false;
+            }
+        }
+        //Errors keep their document's own source lines, so they are compared as the messages they write.
+        if(!a.errors().toString().equals(b.errors().toString())){
+            return false;
+        }
+        List<Expression> e = a.expressions();
+        List<Expression> f = b.expressions();
+        if(e.size() != f.size()){
+            return false;
+        }
+        AstPrinter printer = new AstPrinter();
+        for(int i = 0; i < e.size(); i++){
+            String left = e.get(i) == null ? null : printer.print(e.get(i));
+            String right = f.get(i) == null ? null : printer.print(f.get(i));
+            if(left == null ? right != null : !left.equals(right)){
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,61 @@
+package Interpreter;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Interpreter.evaluate on every expression of each workload, parsed beforehand.
+ * The evaluations counter is in top level expressions evaluated per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InterpreterJmh {
+
+    @Param({"numeric", "strings", "nested"})
+    public String workload;
+
+    private List<Expression> expressions;
+    private final Interpreter interpreter = new Interpreter();
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counts {
+        public long evaluations;
+
+        @Setup(Level.Iteration)
+        public void reset(){
+            evaluations = 0;
+        }
+    }
+
+    @Setup
+    public void setUp(){
+        expressions = JmhWorkloads.parse(JmhWorkloads.source(workload));
+    }
+
+    @Benchmark
+    public void evaluate(Counts counts, Blackhole results){
+        for(Expression expression: expressions){
+            results.consume(interpreter.evaluate(expression));
+        }
+        counts.evaluations += expressions.size();
+    }
+}
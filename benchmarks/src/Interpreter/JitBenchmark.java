@@ -0,0 +1,100 @@
+package Interpreter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Follows the jit engine through its tiers on EngineBenchmark's workloads: the speed of the interpreted tier,
+ * how long compiling takes once expressions are hot, and the speed of the compiled code once it is warm,
+ * against the tree and nodes engines.
+ * Usage: JitBenchmark [expressions] [iterations] [numeric|mixed], defaults to 500 expressions, 2000 iterations
+ * (after the first JitEngine.THRESHOLD) and numeric.
+ */
+public class JitBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        boolean mixed = args.length > 2 && args[2].equals("mixed");
+
+        List<Expression> expressions = mixed ? EngineBenchmark.generateMixed(count, new Random(3))
+                : EngineBenchmark.generate(count, new Random(3));
+        int nodes = 0;
+        for(Expression expression: expressions){
+            nodes += EngineBenchmark.size(expression);
+        }
+        System.out.printf("%s workload: %d expressions, %d nodes%n", mixed ? "mixed" : "numeric", count, nodes);
+
+        List<Object> expected = null;
+        for(String name: new String[]{"tree", "nodes"}){
+            List<Engine.Program> programs = prepare(Engine.named(name), expressions);
+            expected = EngineBenchmark.runAll(programs);
+            time(programs, JitEngine.THRESHOLD);
+            System.out.printf("%-24s %6.2f ns per node%n", name + " (warm)", time(programs, iterations) / nodes);
+        }
+
+        JitEngine engine = new JitEngine();
+        List<Engine.Program> programs = prepare(engine, expressions);
+        System.out.printf("%-24s %6.2f ns per node%n", "jit (interpreted tier)",
+                time(programs, JitEngine.THRESHOLD) / nodes);
+
+        //Every expression is now queued; keep running them until all are compiled.
+        int rounds = 0;
+        while(!allCompiled(programs)){
+            EngineBenchmark.runAll(programs);
+            rounds++;
+            Thread.sleep(1);
+        }
+        long first = Long.MAX_VALUE;
+        long last = 0;
+        long[] latencies = new long[programs.size()];
+        for(int i = 0; i < programs.size(); i++){
+            JitEngine.Tiered program = (JitEngine.Tiered) programs.get(i);
+            first = Math.min(first, program.queuedAt);
+            last = Math.max(last, program.compiledAt);
+            latencies[i] = program.compiledAt - program.queuedAt;
+        }
+        Arrays.sort(latencies);
+        System.out.printf("%-24s %6.2f ms for all, %.2f ms median per expression, %d interpreted runs meanwhile%n",
+                "jit tier-up", (last - first) / 1e6, latencies[latencies.length / 2] / 1e6, rounds);
+
+        System.out.printf("%-24s %6.2f ns per node%n", "jit (compiled, cold)", time(programs, 1) / nodes);
+        time(programs, JitEngine.THRESHOLD);
+        System.out.printf("%-24s %6.2f ns per node%n", "jit (compiled, warm)", time(programs, iterations) / nodes);
+
+        if(!expected.equals(EngineBenchmark.runAll(programs))){
+            System.out.println("jit: RESULTS DIFFER from tree");
+        }
+        engine.close();
+    }
+
+    private static List<Engine.Program> prepare(Engine engine, List<Expression> expressions){
+        List<Engine.Program> programs = new ArrayList<>();
+        for(Expression expression: expressions){
+            programs.add(engine.prepare(expression));
+        }
+        return programs;
+    }
+
+    /**
+     * @return Nanoseconds per run of all the programs.
+     */
+    private static double time(List<Engine.Program> programs, int iterations){
+        long begin = System.nanoTime();
+        for(int i = 0; i < iterations; i++){
+            EngineBenchmark.runAll(programs);
+        }
+        return (double) (System.nanoTime() - begin) / iterations;
+    }
+
+    private static boolean allCompiled(List<Engine.Program> programs){
+        for(Engine.Program program: programs){
+            if(!((JitEngine.Tiered) program).isCompiled()){
+                return false;
+            }
+        }
+        return true;
+    }
+}
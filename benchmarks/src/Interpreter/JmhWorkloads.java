@@ -0,0 +1,91 @@
+package Interpreter;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The source code the JMH benchmarks (*Jmh) run on. Every workload lexes, parses and evaluates without errors.
+ * numeric: arithmetic on numbers, 10 to 40 operands an expression.
+ * strings: String literals concatenated with each other and with numbers, compared and chosen between.
+ * nested: expressions 40 levels deep in parentheses, unary operators and ternaries.
+ */
+final class JmhWorkloads {
+
+    static final int EXPRESSIONS = 1000;
+
+    private static final String[] OPERATORS = {"+", "-", "*", "/", "**", "<<", ">>"};
+    private static final String[] OPERANDS = {"1", "2", "3.5", "0.25", "-4", "~7", "(2 - 1)"};
+    private static final String[] STRINGS = {"\"a\"", "\"lorem ipsum\"", "\"dolor sit amet, consectetur\"", "\"\""};
+
+    private JmhWorkloads(){}
+
+    /**
+     * @param name numeric, strings or nested.
+     * @return EXPRESSIONS expressions, each ending with a semicolon and a newline.
+     */
+    static String source(String name){
+        Random random = new Random(11);
+        StringBuilder source = new StringBuilder();
+        for(int i = 0; i < EXPRESSIONS; i++){
+            switch(name){
+                case "numeric":
+                    source.append(numeric(random, 10 + random.nextInt(31)));
+                    break;
+                case "strings":
+                    source.append(strings(random));
+                    break;
+                case "nested":
+                    source.append(nested(random, 40));
+                    break;
+                default:
+                    throw new IllegalArgumentException(name);
+            }
+            source.append(";\n");
+        }
+        return source.toString();
+    }
+
+    /**
+     * @return The syntax trees of a workload.
+     */
+    static List<Expression> parse(String source){
+        return new Parser(new Lexer(source).lexBuffer()).parseAll();
+    }
+
+    private static String numeric(Random random, int operands){
+        StringBuilder expression = new StringBuilder(OPERANDS[random.nextInt(OPERANDS.length)]);
+        for(int j = 1; j < operands; j++){
+            expression.append(' ').append(OPERATORS[random.nextInt(OPERATORS.length)]).append(' ');
+            expression.append(OPERANDS[random.nextInt(OPERANDS.length)]);
+        }
+        return expression.toString();
+    }
+
+    private static String strings(Random random){
+        StringBuilder concatenation = new StringBuilder(STRINGS[random.nextInt(STRINGS.length)]);
+        int parts = 4 + random.nextInt(8);
+        for(int j = 1; j < parts; j++){
+            concatenation.append(" + ");
+            concatenation.append(j % 3 == 0 ? OPERANDS[random.nextInt(4)] : STRINGS[random.nextInt(STRINGS.length)]);
+        }
+        return "(" + concatenation + ") == " + STRINGS[random.nextInt(STRINGS.length)]
+                + " ? \"same\" : \"different: \" + " + concatenation;
+    }
+
+    private static String nested(Random random, int depth){
+        if(depth == 0){
+            return OPERANDS[random.nextInt(OPERANDS.length)];
+        }
+        String inner = nested(random, depth - 1);
+        switch(random.nextInt(4)){
+            case 0:
+                return "(" + inner + " " + OPERATORS[random.nextInt(4)] + " " + OPERANDS[random.nextInt(4)] + ")";
+            case 1:
+                return "-(" + inner + ")";
+            case 2:
+                return "(" + inner + " > 0 ? " + OPERANDS[random.nextInt(4)] + " : " + OPERANDS[random.nextInt(4)] + ")";
+            default:
+                return "(" + OPERANDS[random.nextInt(4)] + " * " + inner + ")";
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package Interpreter;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures Lexer throughput in tokens per second over a generated source, and the bytes allocated per pass.
+ * Usage: LexerBenchmark [sizeInKB] [iterations], defaults to 4096 KB and 10 iterations.
+ */
+public class LexerBenchmark {
+
+    private static final String CHUNK =
+            "alpha_beta12 + 3.25 * (gamma << 2) |& delta ~& 7 ** 2 <= 9 and \"some text\";\n" +
+            "!(epsilon >= .5) || zeta != 10 ? eta : theta >> 1; // line comment\n" +
+            "/* block /* nested */ comment */ iota_kappa & lambda | mu == nil;\n";
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args){
+        int kilobytes = args.length > 0 ? Integer.parseInt(args[0]) : 4096;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        StringBuilder builder = new StringBuilder();
+        while(builder.length() < kilobytes * 1024){
+            builder.append(CHUNK);
+        }
+        String code = builder.toString();
+
+        //Warm up before timing.
+        for(int i = 0; i < 3; i++){
+            lex(code);
+        }
+
+        long tokens = 0;
+        long allocated = THREADS.getCurrentThreadAllocatedBytes();
+        long begin = System.nanoTime();
+        for(int i = 0; i < iterations; i++){
+            tokens += lex(code);
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        allocated = THREADS.getCurrentThreadAllocatedBytes() - allocated;
+
+        System.out.printf("%d KB x %d: %.2f M tokens/sec (%.1f ms and %.1f MB allocated per pass)%n",
+                kilobytes, iterations, tokens / seconds / 1e6, seconds * 1000 / iterations,
+                allocated / 1048576.0 / iterations);
+    }
+
+    private static long lex(String code){
+        Lexer lexer = new Lexer(code);
+        long count = 0;
+        while(lexer.nextToken().type != Lexer.TokenType.EOF){
+            count++;
+        }
+        return count;
+    }
+}
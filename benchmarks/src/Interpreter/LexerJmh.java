@@ -0,0 +1,57 @@
+package Interpreter;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Lexer.lexTokens over each workload. The tokens counter is in tokens per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LexerJmh {
+
+    @Param({"numeric", "strings", "nested"})
+    public String workload;
+
+    private String source;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counts {
+        public long tokens;
+
+        @Setup(Level.Iteration)
+        public void reset(){
+            tokens = 0;
+        }
+    }
+
+    @Setup
+    public void setUp(){
+        source = JmhWorkloads.source(workload);
+    }
+
+    @Benchmark
+    public List<Token> lexTokens(Counts counts){
+        List<Token> tokens = new Lexer(source).lexTokens();
+        counts.tokens += tokens.size();
+        return tokens;
+    }
+}
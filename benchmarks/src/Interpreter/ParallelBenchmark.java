@@ -0,0 +1,52 @@
+package Interpreter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * Measures how evaluating a file's expressions with ParallelEvaluator scales from 1 to N threads, on
+ * EngineBenchmark's numeric workload. Each count is timed over several rounds after a warm-up.
+ * Usage: ParallelBenchmark [expressions] [maxThreads] [engine], defaults to 20000 expressions, one thread per
+ * core and the tree engine.
+ */
+public class ParallelBenchmark {
+
+    public static void main(String[] args){
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        String name = args.length > 2 ? args[2] : Engine.NAMES[0];
+        int rounds = 10;
+
+        List<Expression> expressions = EngineBenchmark.generate(count, new Random(3));
+        System.out.printf("%d expressions, engine %s, %d cores%n", count, name,
+                Runtime.getRuntime().availableProcessors());
+
+        List<Object> expected = null;
+        double baseline = 0;
+        for(int threads = 1; threads <= maxThreads; threads++){
+            ParallelEvaluator evaluator = new ParallelEvaluator(Engine.named(name), threads);
+            List<Object> results = new ArrayList<>(count);
+            evaluator.evaluate(expressions, results::add);
+            if(expected == null){
+                expected = results;
+            } else if(!Objects.equals(expected, results)){
+                System.out.println(threads + " threads: RESULTS DIFFER");
+            }
+
+            for(int i = 0; i < rounds; i++){
+                evaluator.evaluate(expressions, value -> {});
+            }
+            long begin = System.nanoTime();
+            for(int i = 0; i < rounds; i++){
+                evaluator.evaluate(expressions, value -> {});
+            }
+            double millis = (System.nanoTime() - begin) / 1e6 / rounds;
+            if(baseline == 0){
+                baseline = millis;
+            }
+            System.out.printf("%2d threads %8.2f ms, %5.2fx%n", threads, millis, baseline / millis);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package Interpreter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures Parser throughput in syntax tree nodes per second, over generated expressions of 20 operands each,
+ * separated by semicolons and already lexed into a TokenBuffer.
+ * Usage: ParserBenchmark [operands] [iterations], defaults to 500000 operands and 10 iterations.
+ */
+public class ParserBenchmark {
+
+    private static final String[] OPERATORS = {
+            "+", "-", "*", "/", "**", ">", ">=", "<", "<=", "==", "!=", "and", "or", "|", "&", "|&", "~&"
+    };
+    private static final String[] OPERANDS = {
+            "1", "2.5", "-3", "!true", "~7", "(4 - 2)", "\"text\"", "nil", "(1 + 2 * 3)", "--5"
+    };
+
+    public static void main(String[] args){
+        int operands = args.length > 0 ? Integer.parseInt(args[0]) : 500000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        Random random = new Random(7);
+        StringBuilder builder = new StringBuilder(OPERANDS[0]);
+        for(int i = 1; i < operands; i++){
+            builder.append(' ').append(OPERATORS[random.nextInt(OPERATORS.length)]).append(' ');
+            builder.append(OPERANDS[random.nextInt(OPERANDS.length)]);
+            if(i % 20 == 0){
+                builder.append(";\n").append(OPERANDS[random.nextInt(OPERANDS.length)]);
+            }
+        }
+        TokenBuffer tokens = new Lexer(builder.toString()).lexBuffer();
+
+        List<Integer> semicolons = new ArrayList<>();
+        for(int i = 0; i < tokens.size(); i++){
+            if(tokens.type(i) == Lexer.TokenType.SEMICOLON || tokens.type(i) == Lexer.TokenType.EOF){
+                semicolons.add(i);
+            }
+        }
+
+        //Warm up before timing.
+        long nodes = 0;
+        for(int i = 0; i < 3; i++){
+            nodes = parseAll(tokens, semicolons);
+        }
+
+        long begin = System.nanoTime();
+        for(int i = 0; i < iterations; i++){
+            parseAll(tokens, semicolons);
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+
+        System.out.printf("%d tokens, %d nodes x %d: %.2f M nodes/sec, %.2f M tokens/sec (%.1f ms per parse)%n",
+                tokens.size(), nodes, iterations, nodes * iterations / seconds / 1e6,
+                (double) tokens.size() * iterations / seconds / 1e6, seconds * 1000 / iterations);
+    }
+
+    private static long parseAll(TokenBuffer tokens, List<Integer> semicolons){
+        long nodes = 0;
+        int from = 0;
+        for(int semicolon: semicolons){
+            nodes += count(new Parser(tokens, from, semicolon).parse());
+            from = semicolon + 1;
+        }
+        return nodes;
+    }
+
+    private static long count(Expression expression){
+        return expression.accept(new Expression.Visitor<Long>() {
+            @Override
+            public Long visitBinaryExpression(Expression.Binary expression){
+                return 1 + expression.left.accept(this) + expression.right.accept(this);
+            }
+
+            @Override
+            public Long visitGroupingExpression(Expression.Grouping expression){
+                return 1 + expression.expression.accept(this);
+            }
+
+            @Override
+            public Long visitLiteralExpression(Expression.Literal expression){
+                return 1L;
+            }
+
+            @Override
+            public Long visitUnaryExpression(Expression.Unary expression){
+                return 1 + expression.right.accept(this);
+            }
+
+            @Override
+            public Long visitTernaryExpression(Expression.Ternary expression){
+                return 1 + expression.left.accept(this) + expression.center.accept(this) + expression.right.accept(this);
+            }
+        });
+    }
+}
@@ -0,0 +1,60 @@
+package Interpreter;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parser.parse, through parseAll, over each workload already lexed into a TokenBuffer.
+ * The nodes counter is in syntax tree nodes per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserJmh {
+
+    @Param({"numeric", "strings", "nested"})
+    public String workload;
+
+    private TokenBuffer tokens;
+    private int nodes;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counts {
+        public long nodes;
+
+        @Setup(Level.Iteration)
+        public void reset(){
+            nodes = 0;
+        }
+    }
+
+    @Setup
+    public void setUp(){
+        tokens = new Lexer(JmhWorkloads.source(workload)).lexBuffer();
+        nodes = Optimizer.count(new Parser(tokens).parseAll());
+    }
+
+    @Benchmark
+    public List<Expression> parse(Counts counts){
+        List<Expression> expressions = new Parser(tokens).parseAll();
+        counts.nodes += nodes;
+        return expressions;
+    }
+}
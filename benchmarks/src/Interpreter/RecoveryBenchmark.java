@@ -0,0 +1,68 @@
+package Interpreter;
+
+import java.util.Random;
+
+/**
+ * Compares one pass of Parser.parseAll over clean code with one over the same code where every
+ * few statements have a syntax error, which the Parser reports and recovers from.
+ * Usage: RecoveryBenchmark [statements] [iterations], defaults to 50000 statements and 20 iterations.
+ */
+public class RecoveryBenchmark {
+
+    private static final String[] OPERATORS = {"+", "-", "*", "/", "**", ">", "<=", "==", "and", "|", "<<"};
+    private static final String[] OPERANDS = {"1", "2.5", "-3", "!true", "(4 - 2)", "\"text\"", "nil"};
+    private static final String[] MISTAKES = {")", "* *", "1 ?", "(", "2 3"};
+
+    public static void main(String[] args){
+        int statements = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        TokenBuffer clean = new Lexer(generate(statements, 0)).lexBuffer();
+        TokenBuffer broken = new Lexer(generate(statements, 4)).lexBuffer();
+
+        Parser counter = new Parser(broken, 0, broken.size() - 1);
+        counter.parseAll();
+        int errors = counter.errors();
+
+        double cleanTime = time(clean, iterations);
+        double brokenTime = time(broken, iterations);
+        System.out.printf("clean:  %d tokens, %.1f ms per pass, %.1f ns per token%n",
+                clean.size(), cleanTime, cleanTime * 1e6 / clean.size());
+        System.out.printf("broken: %d tokens, %d errors, %.1f ms per pass, %.1f ns per token%n",
+                broken.size(), errors, brokenTime, brokenTime * 1e6 / broken.size());
+    }
+
+    /**
+     * @param mistakeEvery Put a syntax error in every nth statement, or none if 0.
+     */
+    private static String generate(int statements, int mistakeEvery){
+        Random random = new Random(11);
+        StringBuilder builder = new StringBuilder();
+        for(int i = 0; i < statements; i++){
+            builder.append(OPERANDS[random.nextInt(OPERANDS.length)]);
+            int mistake = mistakeEvery > 0 && i % mistakeEvery == 0 ? random.nextInt(20) : -1;
+            for(int j = 0; j < 20; j++){
+                builder.append(' ').append(OPERATORS[random.nextInt(OPERATORS.length)]).append(' ');
+                builder.append(j == mistake ? MISTAKES[random.nextInt(MISTAKES.length)] : OPERANDS[random.nextInt(OPERANDS.length)]);
+            }
+            builder.append(";\n");
+        }
+        return builder.toString();
+    }
+
+    /**
+     * @return Milliseconds per pass.
+     */
+    private static double time(TokenBuffer tokens, int iterations){
+        //Warm up before timing.
+        for(int i = 0; i < 3; i++){
+            new Parser(tokens, 0, tokens.size() - 1).parseAll();
+        }
+
+        long begin = System.nanoTime();
+        for(int i = 0; i < iterations; i++){
+            new Parser(tokens, 0, tokens.size() - 1).parseAll();
+        }
+        return (System.nanoTime() - begin) / 1e6 / iterations;
+    }
+}
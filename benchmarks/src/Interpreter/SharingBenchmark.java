@@ -0,0 +1,99 @@
+package Interpreter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * Measures hash-consing on a corpus that repeats itself: every statement is built from a few subexpressions out
+ * of a small pool, each used several times. Reports the nodes parsed as trees and as a shared DAG, and compares
+ * the tree engine with the shared one, which evaluates each repeated subexpression once per run.
+ * Usage: SharingBenchmark [statements] [iterations], defaults to 20000 statements and 20 iterations.
+ */
+public class SharingBenchmark {
+
+    private static final String[] OPERATORS = {"+", "-", "*", "/", "**"};
+    private static final String[] OPERANDS = {"1", "2", "3.5", "0.25", "-4", "~7"};
+
+    public static void main(String[] args){
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        String code = generate(count, new Random(3));
+
+        Parser parser = new Parser(new Lexer(code).lexBuffer());
+        List<Expression> trees = parser.parseAll();
+        int treeNodes = 0;
+        for(Expression expression: trees){
+            treeNodes += EngineBenchmark.size(expression);
+        }
+
+        parser = new Parser(new Lexer(code).lexBuffer());
+        ExpressionFactory.HashConsing factory = new ExpressionFactory.HashConsing();
+        parser.setFactory(factory);
+        parser.parseAll();
+        System.out.printf("%d statements: %d nodes as trees, %d as a DAG (%.1f%%), %d nodes reused%n",
+                count, treeNodes, factory.made(), 100.0 * factory.made() / treeNodes, factory.reused());
+
+        List<Object> expected = null;
+        double baseline = 0;
+        for(String name: new String[]{"tree", "shared"}){
+            Engine engine = Engine.named(name);
+            long begin = System.nanoTime();
+            List<Engine.Program> programs = new ArrayList<>();
+            for(Expression expression: trees){
+                programs.add(engine.prepare(expression));
+            }
+            double prepareMs = (System.nanoTime() - begin) / 1e6;
+
+            List<Object> results = EngineBenchmark.runAll(programs);
+            if(expected == null){
+                expected = results;
+            } else if(!Objects.equals(expected, results)){
+                System.out.println(name + ": RESULTS DIFFER from tree");
+            }
+
+            double millis = 0;
+            for(int round = 0; round < 2; round++){     //The first round is warm-up.
+                begin = System.nanoTime();
+                for(int i = 0; i < iterations; i++){
+                    EngineBenchmark.runAll(programs);
+                }
+                millis = (System.nanoTime() - begin) / 1e6 / iterations;
+            }
+            if(baseline == 0){
+                baseline = millis;
+            }
+            System.out.printf("%-8s prepare %8.2f ms, %8.2f ms per run, %5.2fx%n", name, prepareMs, millis, baseline / millis);
+        }
+    }
+
+    /**
+     * Each statement joins eight picks from four subexpressions, which are drawn from a pool of fifty.
+     */
+    private static String generate(int count, Random random){
+        String[] pool = new String[50];
+        for(int i = 0; i < pool.length; i++){
+            StringBuilder expression = new StringBuilder("(").append(OPERANDS[random.nextInt(OPERANDS.length)]);
+            for(int j = 0; j < 6; j++){
+                expression.append(' ').append(OPERATORS[random.nextInt(OPERATORS.length)]).append(' ');
+                expression.append(OPERANDS[random.nextInt(OPERANDS.length)]);
+            }
+            pool[i] = expression.append(")").toString();
+        }
+
+        StringBuilder builder = new StringBuilder();
+        for(int i = 0; i < count; i++){
+            String[] picks = new String[4];
+            for(int j = 0; j < picks.length; j++){
+                picks[j] = pool[random.nextInt(pool.length)];
+            }
+            builder.append(picks[0]);
+            for(int j = 1; j < 8; j++){
+                builder.append(j % 2 == 0 ? " + " : " * ").append(picks[random.nextInt(picks.length)]);
+            }
+            builder.append(";\n");
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,103 @@
+package Interpreter;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Scanner;
+
+/**
+ * Measures load time and peak heap of SourceLoader against the old Scanner based reader.
+ * Usage: SourceLoadBenchmark [sizeInMB...], defaults to 1, 100 and 1024.
+ * The old reader is quadratic, so it is only run on inputs up to LEGACY_LIMIT.
+ */
+public class SourceLoadBenchmark {
+
+    private static final long MB = 1024 * 1024;
+    private static final long LEGACY_LIMIT = 4 * MB;
+    private static final String LINE = "(8.4124 + 0.4001) * 3 > 5 ? \"Yes\" : \"No\"; //generated\n";
+
+    public static void main(String[] args) throws IOException {
+        long[] sizes = {1, 100, 1024};
+        if(args.length > 0){
+            sizes = new long[args.length];
+            for(int i = 0; i < args.length; i++){
+                sizes[i] = Long.parseLong(args[i]);
+            }
+        }
+
+        System.out.printf("%-10s %-8s %12s %14s%n", "size", "reader", "time (ms)", "peak heap (MB)");
+        for(long size: sizes){
+            Path file = generate(size * MB);
+            try {
+                if(size * MB <= LEGACY_LIMIT){
+                    run(size, "scanner", file, true);
+                }
+                run(size, "mapped", file, false);
+            } finally {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private static Path generate(long bytes) throws IOException {
+        Path file = Files.createTempFile("lox-load", ".txt");
+        try(BufferedWriter writer = Files.newBufferedWriter(file)){
+            for(long written = 0; written < bytes; written += LINE.length()){
+                writer.write(LINE);
+            }
+        }
+        return file;
+    }
+
+    private static void run(long size, String name, Path file, boolean legacy) throws IOException {
+        System.gc();
+        for(MemoryPoolMXBean pool: ManagementFactory.getMemoryPoolMXBeans()){
+            pool.resetPeakUsage();
+        }
+
+        long begin = System.nanoTime();
+        CharSequence code = legacy ? scannerRead(file.toFile()) : SourceLoader.load(file.toString());
+        long lines = countLines(code);
+        long elapsed = System.nanoTime() - begin;
+
+        long peak = 0;
+        for(MemoryPoolMXBean pool: ManagementFactory.getMemoryPoolMXBeans()){
+            if(pool.getType() == MemoryType.HEAP){
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        System.out.printf("%-10s %-8s %12.1f %14.1f   (%d lines)%n",
+                size + " MB", name, elapsed / 1e6, peak / (double) MB, lines);
+    }
+
+    /**
+     * Touches every character, so that lazily mapped pages are actually read.
+     */
+    private static long countLines(CharSequence code){
+        long lines = 0;
+        for(int i = 0; i < code.length(); i++){
+            if(code.charAt(i) == '\n'){
+                lines++;
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * The reader Main used before SourceLoader.
+     */
+    private static String scannerRead(File file) throws IOException {
+        Scanner fileScanner = new Scanner(file);
+        String fileContents = "";
+        while(fileScanner.hasNextLine()){
+            fileContents += fileScanner.nextLine() + "\n";
+        }
+        fileScanner.close();
+        return fileContents;
+    }
+}
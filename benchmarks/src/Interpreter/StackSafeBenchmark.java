@@ -0,0 +1,118 @@
+package Interpreter;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+
+/**
+ * Compares the recursive parser, tree-walking engine and AstPrinter with their stack-safe versions (-s): first
+ * their speed on ordinary source from WorkloadGenerator, after checking they give the same trees, values and text;
+ * then how deep a run of parentheses each survives, doubling the depth up to about a million.
+ * Usage: StackSafeBenchmark [size] [rounds], defaults to 1M of source and 10 rounds.
+ */
+public class StackSafeBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        WorkloadGenerator generator = new WorkloadGenerator();
+        generator.size = args.length > 0 ? WorkloadGenerator.bytes(args[0]) : 1 << 20;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        StringWriter source = new StringWriter();
+        generator.write(source);
+        TokenBuffer tokens = new Lexer(source.toString()).lexBuffer();
+
+        List<Expression> recursive = parse(tokens, false);
+        List<Expression> stackSafe = parse(tokens, true);
+        Engine tree = Engine.named("tree");
+        Engine stack = Engine.named("stack");
+        AstPrinter printer = new AstPrinter();
+        AstPrinter stackSafePrinter = new AstPrinter(true);
+        for(int i = 0; i < recursive.size(); i++){
+            String printed = printer.print(recursive.get(i));
+            if(!printed.equals(stackSafePrinter.print(stackSafe.get(i)))){
+                System.out.println("PARSED OR PRINTED DIFFERENTLY: " + printed);
+            }
+            Object value = tree.evaluate(recursive.get(i));
+            if(!String.valueOf(value).equals(String.valueOf(stack.evaluate(stackSafe.get(i))))){
+                System.out.println("EVALUATED DIFFERENTLY: " + printed);
+            }
+        }
+        System.out.printf("%d KB of source, %d expressions, %d nodes%n", source.getBuffer().length() >> 10,
+                recursive.size(), Optimizer.count(recursive));
+
+        double[] times = new double[6];
+        for(int round = 0; round < rounds; round++){
+            //Alternated, so that neither side always runs with the warmer JIT.
+            times[0] = best(times[0], round, () -> parse(tokens, false));
+            times[1] = best(times[1], round, () -> parse(tokens, true));
+            times[2] = best(times[2], round, () -> evaluate(tree, recursive));
+            times[3] = best(times[3], round, () -> evaluate(stack, recursive));
+            times[4] = best(times[4], round, () -> print(printer, recursive));
+            times[5] = best(times[5], round, () -> print(stackSafePrinter, recursive));
+        }
+        System.out.printf("%-10s %12s %12s%n", "", "recursive", "stack-safe");
+        String[] names = {"parse", "evaluate", "print"};
+        for(int i = 0; i < names.length; i++){
+            System.out.printf("%-10s %9.1f ms %9.1f ms%n", names[i], times[2 * i], times[2 * i + 1]);
+        }
+
+        System.out.printf("%n%-10s %12s %12s%n", "depth", "recursive", "stack-safe");
+        String recursiveResult = "ok";
+        for(int depth = 1000; depth <= 1 << 20; depth *= 2){
+            String nested = "(".repeat(depth) + "1" + ")".repeat(depth);
+            //Once the recursive versions overflow they are not tried any deeper.
+            recursiveResult = recursiveResult.equals("ok") ? deep(nested, false) : "-";
+            System.out.printf("%-10d %12s %12s%n", depth, recursiveResult, deep(nested, true));
+        }
+    }
+
+    private static List<Expression> parse(TokenBuffer tokens, boolean stackSafe){
+        Parser parser = new Parser(tokens);
+        parser.setStackSafe(stackSafe);
+        return parser.parseAll();
+    }
+
+    private static Object evaluate(Engine engine, List<Expression> expressions){
+        Object last = null;
+        for(Expression expression: expressions){
+            last = engine.evaluate(expression);
+        }
+        return last;
+    }
+
+    private static int print(AstPrinter printer, List<Expression> expressions){
+        int length = 0;
+        for(Expression expression: expressions){
+            length += printer.print(expression).length();
+        }
+        return length;
+    }
+
+    /**
+     * @return The fastest time so far in milliseconds, ignoring the first round as warm-up.
+     */
+    private static double best(double best, int round, Runnable task){
+        long begin = System.nanoTime();
+        task.run();
+        double ms = (System.nanoTime() - begin) / 1e6;
+        return round == 0 ? Double.MAX_VALUE : Math.min(best, ms);
+    }
+
+    /**
+     * Parses, evaluates and prints one deeply nested expression.
+     * @return "ok", or the error that stopped it.
+     */
+    private static String deep(String source, boolean stackSafe){
+        try{
+            Parser parser = new Parser(new Lexer(source).lexBuffer());
+            parser.setStackSafe(stackSafe);
+            Expression expression = parser.parse();
+            Engine.named(stackSafe ? "stack" : "tree").evaluate(expression);
+            new AstPrinter(stackSafe).print(expression);
+            return "ok";
+        } catch (StackOverflowError e){
+            return "overflow";
+        } catch (OutOfMemoryError e){
+            return "out of heap";
+        }
+    }
+}
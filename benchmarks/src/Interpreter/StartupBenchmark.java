@@ -0,0 +1,100 @@
+package Interpreter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Times launching Main on a small script in a fresh JVM: without class data sharing, with the JDK's own archive
+ * (a plain cold start), and with an AppCDS archive of the interpreter's classes made by a training run (Main -t),
+ * as bin/lox launches it. For each, the median time from starting the process to its first byte of output, and to
+ * its exit. The launches take turns, so that none of them gets a quieter machine.
+ * AppCDS only archives classes loaded from jars, so run this from benchmarks.jar, not from a class directory.
+ *
+ * Usage: StartupBenchmark [runs] [file], defaults to 20 runs of a one-line script.
+ */
+public class StartupBenchmark {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        Path directory = Files.createTempDirectory("startup");
+        Path script = args.length > 1 ? Path.of(args[1]) : Files.writeString(directory.resolve("script.lox"), "1 + 2;\n");
+        Path archive = directory.resolve("interpreter.jsa");
+        String classPath = System.getProperty("java.class.path");
+        for(String entry: classPath.split(java.io.File.pathSeparator)){
+            if(Files.isDirectory(Path.of(entry))){
+                System.out.println("Note: " + entry + " is a directory, so its classes cannot be archived.");
+            }
+        }
+
+        long begin = System.nanoTime();
+        launch(List.of("-XX:ArchiveClassesAtExit=" + archive, "-Xlog:cds=off"), "-t");
+        System.out.printf("training run: %.0f ms, archive %d KB%n", (System.nanoTime() - begin) / 1e6,
+                Files.size(archive) >> 10);
+
+        String[] names = {"no CDS", "JDK CDS (cold)", "AppCDS"};
+        List<List<String>> options = List.of(List.of("-Xshare:off"), List.of(),
+                List.of("-XX:SharedArchiveFile=" + archive, "-Xlog:cds=off"));
+        double[][] firstOutput = new double[names.length][runs];
+        double[][] exit = new double[names.length][runs];
+        launch(options.get(1), script.toString());  //Warms up the disk cache.
+        for(int run = 0; run < runs; run++){
+            for(int i = 0; i < names.length; i++){
+                double[] times = launch(options.get(i), script.toString());
+                firstOutput[i][run] = times[0];
+                exit[i][run] = times[1];
+            }
+        }
+
+        System.out.printf("%-16s %16s %10s%n", "", "first output ms", "exit ms");
+        for(int i = 0; i < names.length; i++){
+            System.out.printf("%-16s %16.1f %10.1f%n", names[i], median(firstOutput[i]), median(exit[i]));
+        }
+        Files.deleteIfExists(archive);
+        if(args.length <= 1){
+            Files.deleteIfExists(script);
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    /**
+     * Runs Main in a new JVM and reads everything it prints.
+     * @param jvm Options for the JVM.
+     * @param args Arguments for Main.
+     * @return Milliseconds from starting the process to its first byte of output, and to its exit.
+     */
+    private static double[] launch(List<String> jvm, String... args) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvm);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(Main.class.getName());
+        command.addAll(Arrays.asList(args));
+
+        long begin = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        long first = -1;
+        try(InputStream out = process.getInputStream()){
+            byte[] buffer = new byte[8192];
+            while(out.read(buffer) >= 0){
+                if(first < 0){
+                    first = System.nanoTime();
+                }
+            }
+        }
+        process.waitFor();
+        long end = System.nanoTime();
+        return new double[]{((first < 0 ? end : first) - begin) / 1e6, (end - begin) / 1e6};
+    }
+
+    private static double median(double[] values){
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
@@ -0,0 +1,155 @@
+package Interpreter;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs the whole Main pipeline over generated sources of growing size, for scaling curves from KB to GB.
+ * Each size gets a file from WorkloadGenerator and a fresh JVM running Main with -r, so that the time of each
+ * phase comes from the phase report, and the peak resident set size (VmHWM in /proc/self/status, so Linux
+ * only) is that compilation's alone. What Main prints is thrown away.
+ *
+ * Usage: ThroughputHarness [--sizes 64K,1M,16M] [--csv out.csv] [--jvm -Xmx4g] [--flags "-p vm -o"]
+ *     [WorkloadGenerator options]
+ */
+public class ThroughputHarness {
+
+    private static final Pattern PHASE = Pattern.compile("\"phase\": \"(\\w+)\".*?\"wallNanos\": (\\d+)");
+    private static final String PEAK = "peak rss kB: ";
+    private static final String[] PHASES = {"read", "parse", "optimize", "evaluate"};
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        WorkloadGenerator generator = new WorkloadGenerator();
+        String[] rest = generator.configure(args, 0);
+        String sizes = "64K,1M,16M";
+        String csv = null;
+        List<String> jvm = new ArrayList<>();
+        List<String> flags = new ArrayList<>();
+        for(int i = 0; i + 1 < rest.length; i++){
+            if(rest[i] == null){
+                continue;
+            }
+            switch(rest[i]){
+                case "--sizes":
+                    sizes = rest[++i];
+                    break;
+                case "--csv":
+                    csv = rest[++i];
+                    break;
+                case "--jvm":
+                    jvm.addAll(Arrays.asList(rest[++i].trim().split("\\s+")));
+                    break;
+                case "--flags":
+                    flags.addAll(Arrays.asList(rest[++i].trim().split("\\s+")));
+                    break;
+            }
+        }
+
+        Path directory = Files.createTempDirectory("workload");
+        PrintWriter table = csv == null ? null : new PrintWriter(Files.newBufferedWriter(Path.of(csv)));
+        String header = "bytes,exit,read_ms,parse_ms,optimize_ms,evaluate_ms,total_ms,mb_per_s,peak_rss_mb";
+        if(table != null){
+            table.println(header);
+        }
+        System.out.printf("%12s %5s %10s %10s %10s %10s %10s %8s %10s%n",
+                "bytes", "exit", "read ms", "parse ms", "opt ms", "eval ms", "total ms", "MB/s", "peak MB");
+
+        for(String size: sizes.split(",")){
+            generator.size = WorkloadGenerator.bytes(size);
+            Path source = directory.resolve("workload-" + size + ".lox");
+            Path report = directory.resolve("report-" + size + ".json");
+            long bytes = generator.write(source.toString());
+
+            List<String> command = new ArrayList<>();
+            command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+            command.addAll(jvm);
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(Child.class.getName());
+            command.add(source.toString());
+            command.addAll(flags);
+            command.add("-r");
+            command.add(report.toString());
+
+            long begin = System.nanoTime();
+            Process process = new ProcessBuilder(command)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            long peakKb = -1;
+            try(BufferedReader errors = new BufferedReader(
+                    new InputStreamReader(process.getErrorStream(), StandardCharsets.UTF_8))){
+                String line;
+                while((line = errors.readLine()) != null){
+                    if(line.startsWith(PEAK)){
+                        peakKb = Long.parseLong(line.substring(PEAK.length()).trim());
+                    } else {
+                        System.err.println(line);
+                    }
+                }
+            }
+            process.waitFor();
+            double totalMs = (System.nanoTime() - begin) / 1e6;
+
+            String json = Files.exists(report) ? Files.readString(report) : "";
+            Map<String, Double> phases = new LinkedHashMap<>();
+            Matcher phase = PHASE.matcher(json);
+            while(phase.find()){
+                phases.put(phase.group(1), Long.parseLong(phase.group(2)) / 1e6);
+            }
+            int exitCode = process.exitValue();
+
+            double[] ms = new double[PHASES.length];
+            for(int i = 0; i < PHASES.length; i++){
+                ms[i] = phases.getOrDefault(PHASES[i], 0.0);
+            }
+            double throughput = bytes / 1048576.0 / (totalMs / 1000);
+            double peakMb = peakKb / 1024.0;
+            System.out.printf("%12d %5d %10.1f %10.1f %10.1f %10.1f %10.1f %8.2f %10.1f%n",
+                    bytes, exitCode, ms[0], ms[1], ms[2], ms[3], totalMs, throughput, peakMb);
+            if(table != null){
+                table.printf("%d,%d,%.1f,%.1f,%.1f,%.1f,%.1f,%.3f,%.1f%n",
+                        bytes, exitCode, ms[0], ms[1], ms[2], ms[3], totalMs, throughput, peakMb);
+            }
+            Files.deleteIfExists(source);
+            Files.deleteIfExists(report);
+        }
+        if(table != null){
+            table.close();
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    /**
+     * Runs Main in the child JVM, and prints its peak resident set size to standard error as the JVM ends,
+     * however Main ends it.
+     */
+    public static class Child {
+        public static void main(String[] args){
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try{
+                    for(String line: Files.readAllLines(new File("/proc/self/status").toPath())){
+                        if(line.startsWith("VmHWM:")){
+                            System.err.println(PEAK + line.replaceAll("[^0-9]", ""));
+                        }
+                    }
+                } catch (IOException e){
+                    //Not Linux; the peak is left out.
+                }
+            }));
+            Main.main(args);
+        }
+    }
+}
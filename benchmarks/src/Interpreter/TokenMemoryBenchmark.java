@@ -0,0 +1,56 @@
+package Interpreter;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+/**
+ * Compares the heap retained by a List of Tokens and by a TokenBuffer for the same source,
+ * and the bytes allocated while lexing into each.
+ * Usage: TokenMemoryBenchmark [sizeInKB], defaults to 16384 KB.
+ */
+public class TokenMemoryBenchmark {
+
+    private static final String CHUNK =
+            "alpha_beta12 + 3.25 * (gamma << 2) |& delta ~& 7 ** 2 <= 9 and \"some text\";\n" +
+            "!(epsilon >= .5) || zeta != 10 ? eta : theta >> 1; // line comment\n";
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args){
+        int kilobytes = args.length > 0 ? Integer.parseInt(args[0]) : 16384;
+        StringBuilder builder = new StringBuilder();
+        while(builder.length() < kilobytes * 1024){
+            builder.append(CHUNK);
+        }
+        String code = builder.toString();
+
+        long baseline = usedHeap();
+        long allocated = THREADS.getCurrentThreadAllocatedBytes();
+        List<Token> list = new Lexer(code).lexTokens();
+        allocated = THREADS.getCurrentThreadAllocatedBytes() - allocated;
+        long retained = usedHeap() - baseline;
+        report("List<Token>", list.size(), retained, allocated);
+        list = null;
+
+        baseline = usedHeap();
+        allocated = THREADS.getCurrentThreadAllocatedBytes();
+        TokenBuffer buffer = new Lexer(code).lexBuffer();
+        allocated = THREADS.getCurrentThreadAllocatedBytes() - allocated;
+        retained = usedHeap() - baseline;
+        report("TokenBuffer", buffer.size(), retained, allocated);
+    }
+
+    private static void report(String name, int tokens, long retained, long allocated){
+        System.out.printf("%-12s %9d tokens  retained %7.1f MB (%5.1f bytes/token)  allocated %7.1f MB%n",
+                name, tokens, retained / 1048576.0, retained / (double) tokens, allocated / 1048576.0);
+    }
+
+    private static long usedHeap(){
+        for(int i = 0; i < 3; i++){
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
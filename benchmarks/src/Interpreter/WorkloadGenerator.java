@@ -0,0 +1,204 @@
+package Interpreter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Random;
+
+/**
+ * Writes large, machine-generated looking Lox sources: one expression per line, nested up to a depth, with
+ * comments and errors sprinkled in. The same options and seed always give the same file.
+ * Expressions are typed as they are built, so that without deliberate errors every one evaluates without failing:
+ * Strings are only concatenated, and only numbers meet the arithmetic operators.
+ *
+ * Usage: WorkloadGenerator out.lox [--size 1M] [--seed 1] [--operators +,-,*,/,**,<<,>>] [--depth 6]
+ *     [--strings 0.2] [--comments 0.1] [--errors 0]
+ *   size: how big to make the file, in bytes, with an optional K, M or G.
+ *   operators: the binary operators numbers are combined with.
+ *   depth: how deep expressions may nest.
+ *   strings: the share of expressions that build a String rather than a number.
+ *   comments: the share of lines with a comment, half of them block comments with another nested inside.
+ *   errors: the share of lines with a lexical or syntax error.
+ */
+public class WorkloadGenerator {
+
+    private static final String[] COMPARISONS = {">", ">=", "<", "<=", "==", "!="};
+    private static final String[] WORDS = {"alpha", "beta", "gamma", "delta", "lorem ipsum", "x", "", "tab\\t"};
+
+    long size = 1 << 20;
+    long seed = 1;
+    String[] operators = {"+", "-", "*", "/", "**", "<<", ">>"};
+    int depth = 6;
+    double strings = 0.2;
+    double comments = 0.1;
+    double errors = 0;
+
+    private Random random;
+
+    public static void main(String[] args) throws IOException {
+        if(args.length == 0){
+            System.out.println("Usage: WorkloadGenerator out.lox [--size 1M] [--seed 1] [--operators +,-,*] "
+                    + "[--depth 6] [--strings 0.2] [--comments 0.1] [--errors 0]");
+            return;
+        }
+        WorkloadGenerator generator = new WorkloadGenerator();
+        generator.configure(args, 1);
+        long written = generator.write(args[0]);
+        System.out.printf("%s: %d bytes%n", args[0], written);
+    }
+
+    /**
+     * Reads --name value options.
+     * @param args The options.
+     * @param from Where in args they start.
+     * @return The arguments that were not generator options, in order, with nulls for the ones that were.
+     */
+    String[] configure(String[] args, int from){
+        String[] rest = args.clone();
+        for(int i = from; i + 1 < args.length; i += 2){
+            String value = args[i + 1];
+            switch(args[i]){
+                case "--size":
+                    size = bytes(value);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(value);
+                    break;
+                case "--operators":
+                    operators = value.split(",");
+                    break;
+                case "--depth":
+                    depth = Integer.parseInt(value);
+                    break;
+                case "--strings":
+                    strings = Double.parseDouble(value);
+                    break;
+                case "--comments":
+                    comments = Double.parseDouble(value);
+                    break;
+                case "--errors":
+                    errors = Double.parseDouble(value);
+                    break;
+                default:
+                    i--;    //Not one of ours; look at the next argument.
+                    continue;
+            }
+            rest[i] = rest[i + 1] = null;
+        }
+        return rest;
+    }
+
+    /**
+     * @param size A number of bytes, e.g. 512K, 16M or 1G.
+     */
+    static long bytes(String size){
+        char unit = Character.toUpperCase(size.charAt(size.length() - 1));
+        int shift = unit == 'K' ? 10 : unit == 'M' ? 20 : unit == 'G' ? 30 : 0;
+        String number = shift == 0 ? size : size.substring(0, size.length() - 1);
+        return (long) (Double.parseDouble(number) * (1L << shift));
+    }
+
+    /**
+     * Writes a file.
+     * @param path Where to write it.
+     * @return How many bytes were written.
+     */
+    long write(String path) throws IOException {
+        try(Writer out = Files.newBufferedWriter(Paths.get(path), StandardCharsets.UTF_8)){
+            return write(out);
+        }
+    }
+
+    /**
+     * Writes lines until there are at least size bytes.
+     * @return How many bytes were written.
+     */
+    long write(Writer out) throws IOException {
+        random = new Random(seed);
+        long written = 0;
+        StringBuilder line = new StringBuilder();
+        while(written < size){
+            line.setLength(0);
+            if(random.nextDouble() < comments && random.nextBoolean()){
+                blockComment(line);
+            }
+            String expression = random.nextDouble() < strings ? string(depth) : number(depth);
+            if(random.nextDouble() < errors){
+                expression = corrupt(expression);
+            }
+            line.append(expression).append(';');
+            if(random.nextDouble() < comments / 2){
+                line.append(" // ").append(WORDS[random.nextInt(WORDS.length)]);
+            }
+            line.append('\n');
+            out.append(line);
+            written += line.length();   //Everything generated is ASCII.
+        }
+        return written;
+    }
+
+    private String number(int depth){
+        if(depth == 0 || random.nextInt(10) < 3){
+            switch(random.nextInt(4)){
+                case 0:
+                    return Integer.toString(random.nextInt(1000));
+                case 1:
+                    return (random.nextInt(10000) / 100.0) + "";
+                case 2:
+                    return "-" + random.nextInt(100);
+                default:
+                    return "~" + random.nextInt(64);
+            }
+        }
+        if(random.nextInt(8) == 0){
+            return "(" + number(depth - 1) + " " + COMPARISONS[random.nextInt(COMPARISONS.length)] + " "
+                    + number(depth - 1) + " ? " + number(depth - 1) + " : " + number(depth - 1) + ")";
+        }
+        return "(" + number(depth - 1) + " " + operators[random.nextInt(operators.length)] + " "
+                + number(depth - 1) + ")";
+    }
+
+    private String string(int depth){
+        if(depth == 0 || random.nextInt(10) < 3){
+            return "\"" + WORDS[random.nextInt(WORDS.length)] + "\"";
+        }
+        switch(random.nextInt(4)){
+            case 0:
+                return "(" + string(depth - 1) + " + " + number(depth - 1) + ")";
+            case 1:
+                return "(" + number(depth - 1) + " + " + string(depth - 1) + ")";
+            case 2:
+                return "(" + string(depth - 1) + " == " + string(depth - 1) + " ? " + string(depth - 1)
+                        + " : " + string(depth - 1) + ")";
+            default:
+                return "(" + string(depth - 1) + " + " + string(depth - 1) + ")";
+        }
+    }
+
+    /**
+     * A comment on a line of its own, with another nested in it, sometimes over more than one line.
+     */
+    private void blockComment(StringBuilder line){
+        line.append("/* ").append(WORDS[random.nextInt(WORDS.length)]);
+        line.append(random.nextBoolean() ? " /* nested */ " : "\n   /* nested\n   */ ");
+        line.append(WORDS[random.nextInt(WORDS.length)]).append(" */\n");
+    }
+
+    /**
+     * Breaks an expression in a way the compiler reports and then recovers from at the semicolon.
+     */
+    private String corrupt(String expression){
+        switch(random.nextInt(3)){
+            case 0:
+                //Unexpected character, before a parenthesis so that it is not inside a String.
+                int at = Math.max(expression.indexOf('(', random.nextInt(expression.length())), 0);
+                return expression.substring(0, at) + "@ " + expression.substring(at);
+            case 1:
+                return "(" + expression;                                                  //Unclosed parenthesis.
+            default:
+                return expression + " *";                                                 //Missing an operand.
+        }
+    }
+}
@@ -1,11 +1,72 @@
 package Interpreter;
 
+import java.util.ArrayDeque;
+
 public class AstPrinter implements Expression.Visitor<String>{
 
+    private final boolean stackSafe;
+
+    public AstPrinter(){
+        this(false);
+    }
+
+    /**
+     * @param stackSafe true to print without recursing, so that nesting depth is limited only by memory.
+     *                  The text is the same either way.
+     */
+    AstPrinter(boolean stackSafe){
+        this.stackSafe = stackSafe;
+    }
+
     String print(Expression expression){
+        if(stackSafe){
+            StringBuilder builder = new StringBuilder();
+            print(expression, builder);
+            return builder.toString();
+        }
         return expression.accept(this);
     }
 
+    /**
+     * Prints into one builder, keeping what is left to print on a stack: the nodes still to print, and the text
+     * that goes between and after them.
+     */
+    private void print(Expression root, StringBuilder builder){
+        ArrayDeque<Object> work = new ArrayDeque<>();
+        work.push(root);
+        while(!work.isEmpty()){
+            Object next = work.pop();
+            if(next instanceof String){
+                builder.append((String) next);
+            } else if(next instanceof Expression.Literal){
+                builder.append(visitLiteralExpression((Expression.Literal) next));
+            } else if(next instanceof Expression.Binary){
+                Expression.Binary binary = (Expression.Binary) next;
+                open(builder, work, binary.operator.lexeme, binary.left, binary.right);
+            } else if(next instanceof Expression.Ternary){
+                Expression.Ternary ternary = (Expression.Ternary) next;
+                open(builder, work, ternary.type.toString(), ternary.left, ternary.center, ternary.right);
+            } else if(next instanceof Expression.Grouping){
+                open(builder, work, "group", ((Expression.Grouping) next).expression);
+            } else if(next instanceof Expression.Unary){
+                Expression.Unary unary = (Expression.Unary) next;
+                open(builder, work, unary.operator.lexeme, unary.right);
+            }
+        }
+    }
+
+    /**
+     * Starts printing a node the way parenthesize() does, leaving its children and closing parenthesis to come.
+     */
+    private static void open(StringBuilder builder, ArrayDeque<Object> work, String name, Expression... expressions){
+        builder.append("(").append(name);
+        work.push(")");
+        for(int i = expressions.length - 1; i >= 0; i--){
+            work.push(expressions[i]);
+            work.push(" ");
+        }
+    }
+
     @Override
     public String visitBinaryExpression(Expression.Binary expression) {
         return parenthesize(expression.operator.lexeme, expression.left, expression.right);
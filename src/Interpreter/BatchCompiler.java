@@ -0,0 +1,152 @@
+package Interpreter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Compiles many files at once, for -b. Each file gets its own thread and its own CompilationContext, so its
+ * errors, phases and printed output stay apart from every other file's. A fatal error or a failed evaluation
+ * only stops that file.
+ *
+ * Files get a virtual thread each where the JVM has them (Java 21 and later). Elsewhere, or when a thread count
+ * is given, they share a fixed pool of platform threads.
+ */
+class BatchCompiler {
+
+    /**
+     * What compiling one file did.
+     */
+    static final class Result {
+        final String file;
+        final String output;
+        final List<CompileError> errors;
+        final int exitCode;     //0 if the file compiled and ran to the end.
+        final List<Phase> phases;
+
+        Result(String file, String output, List<CompileError> errors, int exitCode, List<Phase> phases){
+            this.file = file;
+            this.output = output;
+            this.errors = errors;
+            this.exitCode = exitCode;
+            this.phases = phases;
+        }
+    }
+
+    private final Flags flags;
+    private final int threads;
+    private final Locale locale = CompilationContext.current().locale;
+
+    /**
+     * @param flags The compiler flags for every file.
+     * @param threads How many files to compile at once, or 0 for a virtual thread per file if there are any.
+     */
+    BatchCompiler(Flags flags, int threads){
+        this.flags = flags;
+        this.threads = threads;
+    }
+
+    /**
+     * @param path A directory, for every file under it, or a file with one path per line.
+     * @return The files, sorted if they came from a directory.
+     */
+    static List<String> files(String path) throws IOException {
+        Path root = Paths.get(path);
+        if(Files.isDirectory(root)){
+            try(Stream<Path> paths = Files.walk(root)){
+                return paths.filter(Files::isRegularFile).map(Path::toString).sorted().collect(Collectors.toList());
+            }
+        }
+        List<String> files = new ArrayList<>();
+        for(String line: Files.readAllLines(root)){
+            if(!line.trim().isEmpty()){
+                files.add(line.trim());
+            }
+        }
+        return files;
+    }
+
+    /**
+     * @param files The paths of the files.
+     * @return What happened to each file, in the same order.
+     */
+    List<Result> compile(List<String> files){
+        ExecutorService executor = executor();
+        try{
+            List<Future<Result>> futures = new ArrayList<>();
+            for(String file: files){
+                futures.add(executor.submit(() -> compile(file)));
+            }
+            List<Result> results = new ArrayList<>();
+            for(Future<Result> future: futures){
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException | ExecutionException e){
+            throw new IllegalStateException(e);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private Result compile(String file){
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bytes, false, StandardCharsets.UTF_8);
+        CompilationContext context = new CompilationContext(locale, out, false);
+        context.measurePhases = flags.isSet(Flags.flagType.Report);
+        int[] exitCode = {0};
+        CompilationContext.run(context, () -> {
+            try{
+                //The file's expressions are evaluated on this thread; the other files keep the cores busy.
+                Main.compile(file, flags, 1);
+            } catch (FatalCompileError e){
+                exitCode[0] = e.exitCode();
+            } catch (RuntimeException e){
+                out.println(String.format(context.message("batchException"), e));
+                exitCode[0] = 1;    //What an uncaught exception ends the process with, as in a run of its own.
+            }
+        });
+        out.flush();
+        return new Result(file, bytes.toString(StandardCharsets.UTF_8), context.diagnostics.errors(), exitCode[0],
+                context.phases);
+    }
+
+    private ExecutorService executor(){
+        if(threads == 0){
+            try{
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e){
+                //No virtual threads before Java 21.
+            }
+        }
+        return Executors.newFixedThreadPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @return true if files run on virtual threads.
+     */
+    boolean usesVirtualThreads(){
+        if(threads != 0){
+            return false;
+        }
+        try{
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e){
+            return false;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package Interpreter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles a syntax tree to a Chunk of stack machine bytecode. Operands are evaluated left to right before their
+ * operator, in the same order the Interpreter evaluates them, so any error happens at the same point.
+ */
+class BytecodeCompiler implements Expression.Visitor<Void> {
+
+    //The opcode of each operator that has its own, indexed by TokenType ordinal. Anything else is BINARY.
+    private static final byte[] BINARY_OPCODES = new byte[Lexer.TokenType.values().length];
+
+    static {
+        Arrays.fill(BINARY_OPCODES, Chunk.BINARY);
+        BINARY_OPCODES[Lexer.TokenType.PLUS.ordinal()] = Chunk.ADD;
+        BINARY_OPCODES[Lexer.TokenType.MINUS.ordinal()] = Chunk.SUBTRACT;
+        BINARY_OPCODES[Lexer.TokenType.STAR.ordinal()] = Chunk.MULTIPLY;
+        BINARY_OPCODES[Lexer.TokenType.SLASH.ordinal()] = Chunk.DIVIDE;
+        BINARY_OPCODES[Lexer.TokenType.STAR_STAR.ordinal()] = Chunk.POWER;
+        BINARY_OPCODES[Lexer.TokenType.GREATER.ordinal()] = Chunk.GREATER;
+        BINARY_OPCODES[Lexer.TokenType.GREATER_EQUAL.ordinal()] = Chunk.GREATER_EQUAL;
+        BINARY_OPCODES[Lexer.TokenType.LESS.ordinal()] = Chunk.LESS;
+        BINARY_OPCODES[Lexer.TokenType.LESS_EQUAL.ordinal()] = Chunk.LESS_EQUAL;
+        BINARY_OPCODES[Lexer.TokenType.EQUAL_EQUAL.ordinal()] = Chunk.EQUAL;
+        BINARY_OPCODES[Lexer.TokenType.BANG_EQUAL.ordinal()] = Chunk.NOT_EQUAL;
+        BINARY_OPCODES[Lexer.TokenType.LEFT_SHIFT.ordinal()] = Chunk.LEFT_SHIFT;
+        BINARY_OPCODES[Lexer.TokenType.RIGHT_SHIFT.ordinal()] = Chunk.RIGHT_SHIFT;
+    }
+
+    private byte[] code = new byte[64];
+    private int size = 0;
+
+    //Constants are stored once, however often they appear. Numbers are keyed by their bits, so 0.0 and -0.0 differ.
+    private final Map<Long, Integer> numberIndexes = new HashMap<>();
+    private double[] numbers = new double[8];
+    private final Map<Object, Integer> constantIndexes = new HashMap<>();
+    private final List<Object> constants = new ArrayList<>();
+
+    private int depth = 0;
+    private int maxDepth = 0;
+
+    /**
+     * @param expression The expression to compile.
+     * @return Bytecode that evaluates it.
+     */
+    Chunk compile(Expression expression){
+        expression.accept(this);
+        emit(Chunk.RETURN);
+        return new Chunk(Arrays.copyOf(code, size), Arrays.copyOf(numbers, numberIndexes.size()),
+                constants.toArray(), maxDepth);
+    }
+
+    @Override
+    public Void visitLiteralExpression(Expression.Literal expression){
+        if(expression.value instanceof Double){
+            double value = (double) expression.value;
+            Integer index = numberIndexes.get(Double.doubleToRawLongBits(value));
+            if(index == null){
+                index = numberIndexes.size();
+                if(index == numbers.length){
+                    numbers = Arrays.copyOf(numbers, numbers.length * 2);
+                }
+                numbers[index] = value;
+                numberIndexes.put(Double.doubleToRawLongBits(value), index);
+            }
+            emitIndex(Chunk.NUMBER, Chunk.NUMBER_WIDE, index);
+        } else {
+            Integer index = constantIndexes.get(expression.value);
+            if(index == null){
+                index = constants.size();
+                constants.add(expression.value);
+                constantIndexes.put(expression.value, index);
+            }
+            emitIndex(Chunk.CONSTANT, Chunk.CONSTANT_WIDE, index);
+        }
+        push();
+        return null;
+    }
+
+    @Override
+    public Void visitGroupingExpression(Expression.Grouping expression){
+        return expression.expression.accept(this);
+    }
+
+    @Override
+    public Void visitUnaryExpression(Expression.Unary expression){
+        expression.right.accept(this);
+        switch(expression.operator.type){
+            case MINUS:
+                emit(Chunk.NEGATE);
+                break;
+            case BANG:
+                emit(Chunk.NOT);
+                break;
+            case B_NOT:
+                emit(Chunk.BITWISE_NOT);
+                break;
+            default:
+                throw new IllegalArgumentException("Not a unary operator: " + expression.operator.type);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitBinaryExpression(Expression.Binary expression){
+        expression.left.accept(this);
+        expression.right.accept(this);
+        byte opcode = BINARY_OPCODES[expression.operator.type.ordinal()];
+        emit(opcode);
+        if(opcode == Chunk.BINARY){
+            emit((byte) expression.operator.type.ordinal());
+        }
+        depth--;
+        return null;
+    }
+
+    @Override
+    public Void visitTernaryExpression(Expression.Ternary expression){
+        expression.left.accept(this);
+        emit(Chunk.JUMP_IF_FALSE);
+        int toElse = emitInt(0);
+        depth--;
+
+        expression.center.accept(this);
+        emit(Chunk.JUMP);
+        int toEnd = emitInt(0);
+        depth--;
+
+        patch(toElse, size);
+        expression.right.accept(this);
+        patch(toEnd, size);
+        return null;
+    }
+
+    private void push(){
+        depth++;
+        if(depth > maxDepth){
+            maxDepth = depth;
+        }
+    }
+
+    private void emit(byte b){
+        if(size == code.length){
+            code = Arrays.copyOf(code, code.length * 2);
+        }
+        code[size++] = b;
+    }
+
+    /**
+     * Emits an instruction with a constant index, in its wide form if the index does not fit in a u16.
+     */
+    private void emitIndex(byte opcode, byte wideOpcode, int index){
+        if(index > 0xFFFF){
+            emit(wideOpcode);
+            emitInt(index);
+        } else {
+            emit(opcode);
+            emit((byte) (index >> 8));
+            emit((byte) index);
+        }
+    }
+
+    /**
+     * @return Where the int was written, for patching.
+     */
+    private int emitInt(int value){
+        int at = size;
+        emit((byte) (value >> 24));
+        emit((byte) (value >> 16));
+        emit((byte) (value >> 8));
+        emit((byte) value);
+        return at;
+    }
+
+    private void patch(int at, int value){
+        code[at] = (byte) (value >> 24);
+        code[at + 1] = (byte) (value >> 16);
+        code[at + 2] = (byte) (value >> 8);
+        code[at + 3] = (byte) value;
+    }
+}
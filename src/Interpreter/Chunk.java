@@ -0,0 +1,52 @@
+package Interpreter;
+
+/**
+ * One expression compiled to bytecode for the VirtualMachine by BytecodeCompiler.
+ * Each instruction is a one byte opcode followed by its operands, which are big-endian.
+ */
+final class Chunk {
+
+    //Opcodes, with their operands.
+    static final byte NUMBER = 0;           //u16 index into numbers. Pushes the number.
+    static final byte CONSTANT = 1;         //u16 index into constants. Pushes the String, Boolean or nil.
+    static final byte ADD = 2;              //Pops two values and pushes the result of the operator.
+    static final byte SUBTRACT = 3;
+    static final byte MULTIPLY = 4;
+    static final byte DIVIDE = 5;
+    static final byte POWER = 6;
+    static final byte GREATER = 7;
+    static final byte GREATER_EQUAL = 8;
+    static final byte LESS = 9;
+    static final byte LESS_EQUAL = 10;
+    static final byte EQUAL = 11;
+    static final byte NOT_EQUAL = 12;
+    static final byte LEFT_SHIFT = 13;
+    static final byte RIGHT_SHIFT = 14;
+    static final byte BINARY = 15;          //u8 TokenType ordinal. Any other binary operator, done by Operators.
+    static final byte NEGATE = 16;          //Pops one value and pushes the result of the operator.
+    static final byte NOT = 17;
+    static final byte BITWISE_NOT = 18;
+    static final byte JUMP_IF_FALSE = 19;   //s32 target. Pops a value, and jumps to the target if it is not truthy.
+    static final byte JUMP = 20;            //s32 target.
+    static final byte RETURN = 21;          //Ends the program with the value on top of the stack.
+    static final byte NUMBER_WIDE = 22;     //s32 index into numbers, for more than a u16 can index.
+    static final byte CONSTANT_WIDE = 23;   //s32 index into constants.
+
+    final byte[] code;
+    final double[] numbers;
+    final Object[] constants;
+    final int maxStack;
+
+    /**
+     * @param code The instructions.
+     * @param numbers The number constants, which are kept unboxed.
+     * @param constants Every other constant.
+     * @param maxStack The most values the code ever has on the stack at once.
+     */
+    Chunk(byte[] code, double[] numbers, Object[] constants, int maxStack){
+        this.code = code;
+        this.numbers = numbers;
+        this.constants = constants;
+        this.maxStack = maxStack;
+    }
+}
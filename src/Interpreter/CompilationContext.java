@@ -0,0 +1,97 @@
+package Interpreter;
+
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.ResourceBundle;
+
+/**
+ * Everything one compilation keeps track of: its errors, its phases, its locale and where it prints.
+ * CompileError, Phase and the Lexer use the context of the thread they run on. That is the process-wide one
+ * unless run() gave the thread its own, which is how BatchCompiler keeps many compilations on many threads apart.
+ */
+class CompilationContext {
+
+    private static final CompilationContext PROCESS = new CompilationContext(new Locale("en", "US"), System.out, true);
+    private static final ThreadLocal<CompilationContext> CURRENT = new ThreadLocal<>();
+
+    final Diagnostics diagnostics = new Diagnostics();
+    final Locale locale;
+    final PrintStream out;
+    private final boolean exitOnFatal;
+    private ResourceBundle messages;    //Loaded by the first message().
+    final List<Phase> phases = new ArrayList<>();   //Finished phases, in order.
+    Phase phase;                //The phase in progress, if any.
+    boolean measurePhases;      //true to measure every phase, for -r.
+    String fileName;            //The file being compiled, if any.
+    Path directory;             //What relative paths are resolved against, if not the working directory.
+    int exitCode;               //What stop() was given, or 0.
+
+    /**
+     * @param locale The locale of the source code and of messages.
+     * @param out Where messages and results are printed.
+     * @param exitOnFatal true to end the process on a fatal error, false to throw FatalCompileError instead.
+     */
+    CompilationContext(Locale locale, PrintStream out, boolean exitOnFatal){
+        this.locale = locale;
+        this.out = out;
+        this.exitOnFatal = exitOnFatal;
+    }
+
+    /**
+     * @return The context of the compilation running on this thread.
+     */
+    static CompilationContext current(){
+        CompilationContext context = CURRENT.get();
+        return context == null ? PROCESS : context;
+    }
+
+    /**
+     * Runs a compilation on this thread in its own context.
+     */
+    static void run(CompilationContext context, Runnable compilation){
+        CompilationContext previous = CURRENT.get();
+        CURRENT.set(context);
+        try{
+            compilation.run();
+        } finally {
+            CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * @param path A path given by the user.
+     * @return The path, resolved against this context's directory if it has one.
+     */
+    String resolve(String path){
+        return directory == null ? path : directory.resolve(path).toString();
+    }
+
+    /**
+     * @param key A key in compilerUI.
+     * @return The message in this context's locale.
+     */
+    String message(String key){
+        if(messages == null){
+            //ResourceBundle caches the bundle, so contexts on other threads that race here get the same one.
+            messages = ResourceBundle.getBundle("Interpreter.compilerUI", locale);
+        }
+        return messages.getString(key);
+    }
+
+    /**
+     * Stops the compilation: ends the process, or throws FatalCompileError if other compilations share it.
+     * @param code The exit code.
+     * @param message What is thrown with the FatalCompileError.
+     */
+    void stop(int code, String message){
+        exitCode = code;
+        Phase.abandon(this);
+        if(exitOnFatal){
+            System.exit(code);
+        }
+        throw new FatalCompileError(message, code);
+    }
+}
@@ -0,0 +1,71 @@
+package Interpreter;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Paths;
+
+/**
+ * Sends a file to a CompileDaemon and prints what compiling it printed, as it arrives, then ends with its exit code.
+ * It loads next to nothing besides the socket classes, so a run costs little more than starting the JVM.
+ *
+ * Usage: CompileClient socket file [flags], or CompileClient socket --stop to stop the daemon.
+ */
+public class CompileClient {
+
+    public static void main(String[] args){
+        if(args.length < 2){
+            System.out.println("Usage: CompileClient socket file [flags], or CompileClient socket --stop");
+            return;
+        }
+        int exitCode;
+        try(SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(args[0]))){
+            DataOutputStream request = new DataOutputStream(Channels.newOutputStream(channel));
+            request.writeUTF(Paths.get("").toAbsolutePath().toString());
+            request.writeInt(args.length - 1);
+            for(int i = 1; i < args.length; i++){
+                request.writeUTF(args[i]);
+            }
+            request.flush();
+            exitCode = copyResponse(new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel))));
+        } catch (EOFException e){
+            CompileError.enqueue(CompileError.Error.DaemonUnreachable, -1, -1,
+                    new String[]{args[0], "the connection closed early"}, true);
+            return;
+        } catch (IOException e){
+            CompileError.enqueue(CompileError.Error.DaemonUnreachable, -1, -1, new String[]{args[0], e.toString()}, true);
+            return;
+        }
+        System.exit(exitCode);
+    }
+
+    /**
+     * Writes the daemon's output to standard output until it sends the exit code.
+     * @return The exit code.
+     */
+    private static int copyResponse(DataInputStream response) throws IOException {
+        OutputStream out = new FileOutputStream(FileDescriptor.out);
+        byte[] buffer = new byte[8192];
+        while(true){
+            byte type = response.readByte();
+            if(type == CompileDaemon.EXIT){
+                return response.readInt();
+            }
+            int length = response.readInt();
+            if(length > buffer.length){
+                buffer = new byte[length];
+            }
+            response.readFully(buffer, 0, length);
+            out.write(buffer, 0, length);
+            out.flush();
+        }
+    }
+}
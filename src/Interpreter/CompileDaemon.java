@@ -0,0 +1,247 @@
+package Interpreter;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps a compiler running on a Unix domain socket, for -d, so that a compilation sent by CompileClient pays
+ * neither JVM startup, nor loading classes and bundles, nor a cold JIT. Before listening it runs a TrainingRun
+ * until the lexer, parser, optimizer and engine are compiled by the JIT.
+ *
+ * Each request is one file and its flags, compiled on a thread of its own in a CompilationContext of its own, as
+ * BatchCompiler does it, so requests run at once without seeing each other's errors, phases or output. A fatal
+ * error or a failed evaluation only ends that request.
+ *
+ * A request is the client's working directory, which relative paths are resolved against, then the arguments it
+ * was given, as Main takes them. The response is what the compilation prints, in OUTPUT chunks sent as they fill
+ * up, then an EXIT with the exit code the compilation would have ended the process with.
+ */
+class CompileDaemon {
+
+    static final byte OUTPUT = 1;           //Followed by a length and that many bytes of output.
+    static final byte EXIT = 2;             //Followed by the exit code; the last thing sent.
+    static final String STOP = "--stop";    //A request to stop the daemon.
+
+    private static final int WARM_UP_ROUNDS = 200;
+
+    private final Path socket;
+    private final ServerSocketChannel server;
+    private final Locale locale = CompilationContext.current().locale;
+    private final ExecutorService requests = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "compile-request");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private CompileDaemon(Path socket, ServerSocketChannel server){
+        this.socket = socket;
+        this.server = server;
+    }
+
+    /**
+     * Listens on a socket until a client asks the daemon to stop.
+     * @param path The socket's path. A socket left there by a daemon that is no longer running is replaced.
+     */
+    static void serve(String path){
+        CompilationContext context = CompilationContext.current();
+        Path socket = Paths.get(path).toAbsolutePath();
+        ServerSocketChannel server;
+        try{
+            if(Files.exists(socket)){
+                if(answers(socket)){
+                    throw new IOException("another daemon is listening on it");
+                }
+                Files.delete(socket);   //Left behind by a daemon that did not stop cleanly.
+            }
+            server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+            server.bind(UnixDomainSocketAddress.of(socket));
+        } catch (IOException | UnsupportedOperationException e){
+            CompileError.enqueue(CompileError.Error.DaemonSocketUnusable, -1, -1, new String[]{path, e.toString()}, true);
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try{
+                Files.deleteIfExists(socket);
+            } catch (IOException e){
+                //The socket stays behind, and the next daemon replaces it.
+            }
+        }));
+
+        CompileDaemon daemon = new CompileDaemon(socket, server);
+        long begin = System.nanoTime();
+        try{
+            TrainingRun.run(WARM_UP_ROUNDS);
+        } catch (IOException e){
+            //Nowhere to write the made-up files, so the first requests run cold.
+        }
+        context.out.println(String.format(context.message("daemonListening"), socket,
+                (System.nanoTime() - begin) / 1e6));
+        daemon.listen();
+        context.out.println(context.message("daemonStopped"));
+    }
+
+    private static boolean answers(Path socket){
+        try{
+            SocketChannel.open(UnixDomainSocketAddress.of(socket)).close();
+            return true;
+        } catch (IOException e){
+            return false;
+        }
+    }
+
+    private void listen(){
+        while(server.isOpen()){
+            try{
+                SocketChannel channel = server.accept();
+                requests.execute(() -> handle(channel));
+            } catch (AsynchronousCloseException e){
+                break;      //Stopped by a request.
+            } catch (IOException e){
+                //One failed connection; keep serving the others.
+            }
+        }
+        requests.shutdown();
+        try{
+            Files.deleteIfExists(socket);
+        } catch (IOException e){
+            //The next daemon replaces it.
+        }
+    }
+
+    private void handle(SocketChannel channel){
+        try(channel){
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            Path directory = Paths.get(in.readUTF());
+            String[] args = new String[in.readInt()];
+            for(int i = 0; i < args.length; i++){
+                args[i] = in.readUTF();
+            }
+            Frames frames = new Frames(Channels.newOutputStream(channel));
+            if(args.length == 1 && args[0].equals(STOP)){
+                frames.exit(0);
+                server.close();
+                return;
+            }
+            PrintStream out = new PrintStream(frames, false, StandardCharsets.UTF_8);
+            int exitCode = compile(directory, args, out);
+            out.flush();
+            frames.exit(exitCode);
+        } catch (IOException e){
+            //The client went away; there is no one to tell.
+        }
+    }
+
+    /**
+     * Compiles one file, as Main would in a process of its own.
+     * @param directory The client's working directory.
+     * @param args The file, then its flags.
+     * @param out Where to print.
+     * @return The exit code.
+     */
+    private int compile(Path directory, String[] args, PrintStream out){
+        CompilationContext context = new CompilationContext(locale, out, false);
+        context.directory = directory;
+        int[] exitCode = {0};
+        CompilationContext.run(context, () -> {
+            try{
+                Flags flags = new Flags();
+                flags.parse(Arrays.copyOfRange(args, 1, args.length));
+                //Requests run at once, so each one's expressions are evaluated on its own thread unless -j is given.
+                int threads = flags.isSet(Flags.flagType.Threads)
+                        ? Integer.parseInt(flags.get(Flags.flagType.Threads)) : 1;
+                context.measurePhases = flags.isSet(Flags.flagType.Report);
+                try{
+                    Main.compile(args[0], flags, threads);
+                } finally {
+                    if(context.measurePhases){
+                        Main.report(flags.get(Flags.flagType.Report),
+                                Collections.singletonList(args[0]), Collections.singletonList(context.exitCode),
+                                Collections.singletonList(context.phases));
+                    }
+                }
+            } catch (FatalCompileError e){
+                exitCode[0] = e.exitCode();
+            } catch (RuntimeException e){
+                out.println(String.format(context.message("batchException"), e));
+                exitCode[0] = 1;    //What an uncaught exception ends the process with.
+            }
+        });
+        return exitCode[0];
+    }
+
+    /**
+     * Sends what a compilation prints as OUTPUT chunks, one each time the buffer fills up or is flushed.
+     */
+    private static final class Frames extends OutputStream {
+        private final DataOutputStream out;
+        private final byte[] buffer = new byte[8192];
+        private int count;
+
+        Frames(OutputStream out){
+            this.out = new DataOutputStream(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if(count == buffer.length){
+                send();
+            }
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            while(length > 0){
+                if(count == buffer.length){
+                    send();
+                }
+                int copied = Math.min(length, buffer.length - count);
+                System.arraycopy(bytes, offset, buffer, count, copied);
+                count += copied;
+                offset += copied;
+                length -= copied;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            send();
+            out.flush();
+        }
+
+        void exit(int exitCode) throws IOException {
+            send();
+            out.writeByte(EXIT);
+            out.writeInt(exitCode);
+            out.flush();
+        }
+
+        private void send() throws IOException {
+            if(count > 0){
+                out.writeByte(OUTPUT);
+                out.writeInt(count);
+                out.write(buffer, 0, count);
+                count = 0;
+            }
+        }
+    }
+}
@@ -1,12 +1,18 @@
 package Interpreter;
 
-import java.util.ArrayList;
-import java.util.ResourceBundle;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.Locale;
 
+/**
+ * An error found while compiling. Errors are kept, and their messages looked up, in the CompilationContext of the
+ * thread that found them.
+ */
 public class CompileError {
 
-    private static ResourceBundle em = ResourceBundle.getBundle("Interpreter.errors", Main.locale);
-
     /**
      * Enum of all types of errors that can happen; each should have a unique value which can be accessed.
      */
@@ -19,7 +25,14 @@ public class CompileError {
         UnrecognizedFlag(6),        //A flag that isn't a real flag was included.
         OpenLeftParen(7),            //A parenthesis was left open.
         ExpectedExpression(8),
-        UnterminatedTernary(9)      //A malformed ternary operator.
+        UnterminatedTernary(9),     //A malformed ternary operator.
+        FileUnreadable(10),         //A file specified exists but could not be read.
+        ExpectedSemicolon(11),      //Something other than a semicolon follows a complete expression.
+        UnrecognizedEngine(12),     //The -p flag names an execution engine that doesn't exist.
+        BadFlagArgument(13),        //A compiler flag's argument is not one it accepts.
+        ReportUnwritable(14),       //The file given to -r could not be written.
+        DaemonSocketUnusable(15),   //The daemon could not listen on the socket given to -d.
+        DaemonUnreachable(16)       //The client could not reach a daemon, or lost it before the compilation ended.
         ;
 
         private final int value;
@@ -31,29 +44,36 @@ public class CompileError {
         }
     }
 
-    private static ArrayList<CompileError> errors = new ArrayList<CompileError>();
+    /**
+     * The errors the Lexer and Parser find in the source code, as opposed to ones about flags, files or reports.
+     */
+    private static final Set<Error> SYNTAX = EnumSet.of(Error.UnexpectedCharacter, Error.UnterminatedComment,
+            Error.UnterminatedString, Error.OpenLeftParen, Error.ExpectedExpression, Error.UnterminatedTernary,
+            Error.ExpectedSemicolon);
 
-    private Error errorType;
-    private int line, pos;
-    private String[] details;
+    private final Error errorType;
+    private final int line, pos;
+    private final Object[] details;
 
     /**
      * An error that gets generated during the compilation.
      * @param e The type of error it is.
      * @param line The line on which the error occurred.
      * @param pos The position of the character on which the error starts.
-     * @param details A String array of details about the error and how it occurred.
+     * @param details Details about the error and how it occurred. Each is turned into a String only when the
+     *                message is written, so a detail that is costly to build can put that off until then.
      * @param fatal true if the error should stop compilation, false otherwise.
      */
-    public CompileError(Error e, int line, int pos, String[] details, boolean fatal){
+    public CompileError(Error e, int line, int pos, Object[] details, boolean fatal){
         this.errorType = e;
         this.line = line;
         this.pos = pos;
         this.details = details;
         if(fatal){
-            //throw new FatalCompileError(toString());
-            System.out.println(toString());
-            System.exit(e.value());
+            CompilationContext context = CompilationContext.current();
+            context.out.println(toString());
+            context.diagnostics.add(this);
+            context.stop(e.value(), toString());
         }
     }
 
@@ -61,9 +81,52 @@ public class CompileError {
      * Print out all errors that have accumulated.
      */
     public static void dump(){
-        for(CompileError e: errors){
-            System.out.println(e.toString());
+        CompilationContext context = CompilationContext.current();
+        context.diagnostics.writeTo(context.out, context);
+    }
+
+    /**
+     * Print out all errors that have accumulated, then stop compilation with the exit code of the first syntax
+     * error, so that warnings about flags reported before it do not decide the exit code.
+     */
+    public static void dumpAndExit(){
+        dump();
+        CompileError first = null;
+        for(CompileError error: CompilationContext.current().diagnostics.errors()){
+            if(SYNTAX.contains(error.errorType)){
+                first = error;
+                break;
+            }
+            if(first == null){
+                first = error;  //Only used if -e left no syntax error kept.
+            }
         }
+        CompilationContext.current().stop(first == null ? 0 : first.errorType.value(),
+                first == null ? "" : first.toString());
+    }
+
+    int line(){
+        return line;
+    }
+
+    int pos(){
+        return pos;
+    }
+
+    /**
+     * @return The same error at another place, for code that has moved since it was found, with the source lines
+     * in its details moved along. It is not enqueued.
+     */
+    CompileError movedTo(int line, int pos){
+        Object[] moved = details.clone();
+        for(int i = 0; i < moved.length; i++){
+            if(moved[i] instanceof SourceFile.Line){
+                moved[i] = ((SourceFile.Line) moved[i]).movedBy(line - this.line);
+            } else if(moved[i] instanceof SourceFile.Lines){
+                moved[i] = ((SourceFile.Lines) moved[i]).movedBy(line - this.line);
+            }
+        }
+        return new CompileError(errorType, line, pos, moved, false);
     }
 
     /**
@@ -71,7 +134,23 @@ public class CompileError {
      * @return
      */
     public String toString(){
-        return getMessage();
+        StringBuilder message = new StringBuilder();
+        try{
+            format(message, CompilationContext.current().locale);
+        } catch (IOException e){
+            throw new UncheckedIOException(e);     //A StringBuilder never throws it.
+        }
+        return message.toString();
+    }
+
+    /**
+     * Writes the message for this error: its template from errors_*.properties, with the line and character for
+     * %location%, a squiggle pointing at the character for %squiggle%, and each detail for its %detailN%.
+     * @param out Where to write it.
+     * @param locale The locale of the message.
+     */
+    void format(Appendable out, Locale locale) throws IOException {
+        MessageTemplate.of(locale, errorType).format(out, line, pos, details);
     }
 
     /**
@@ -79,44 +158,28 @@ public class CompileError {
      * @param e The error type.
      * @param line The line on which the error occurs.
      * @param pos The character position within the line the error occurs.
-     * @param details A String array of details, which can be substituted in the compiler message.
+     * @param details Details, which can be substituted in the compiler message.
      * @param fatal true if this error should halt compliation, false otherwise.
      */
-    public static void enqueue(Error e, int line, int pos, String[] details, boolean fatal){
-        errors.add(new CompileError(e, line, pos, details, fatal));
+    public static void enqueue(Error e, int line, int pos, Object[] details, boolean fatal){
+        CompilationContext.current().diagnostics.add(new CompileError(e, line, pos, details, fatal));
     }
 
     /**
-     * Generates a message for this CompileError, substituting line and character numbers for %location% in the text,
-     * an indicator squiggle for %squiggle%, and each item in the details array for each %details%, in order given by
-     * the array.
-     * @return The completed message.
+     * Errors are equal if they are the same type at the same place, with equal details.
      */
-    private String getMessage(){
-        String message = em.getString(errorType.name());
-        for(int i = 0; i < details.length; i++){
-            message = message.replaceAll("%detail" + i + "%", details[i]);
+    @Override
+    public boolean equals(Object other){
+        if(!(other instanceof CompileError)){
+            return false;
         }
-
-        if(line != -1 && pos != -1) {
-            message = message.replace("%location%", "line " + line + ", character " + pos + "");
-            message = message.replace("%squiggle%",generateSquiggle(pos));
-        }
-
-        return message;
+        CompileError error = (CompileError) other;
+        return errorType == error.errorType && line == error.line && pos == error.pos
+                && Arrays.equals(details, error.details);
     }
 
-    /**
-     * Outputs a squiggle like "~~~~~~^" to indicate where a problem in compilation is.
-     * @param length How many characters in the erroneous symbol is.
-     * @return A String of the correct length.
-     */
-    private String generateSquiggle(int length){
-        String squiggle = "";
-        for(int i = 0; i < length - 1; i++){
-            squiggle += "~";
-        }
-        squiggle += "^";
-        return squiggle;
+    @Override
+    public int hashCode(){
+        return ((errorType.hashCode() * 31 + line) * 31 + pos) * 31 + Arrays.hashCode(details);
     }
 }
@@ -0,0 +1,104 @@
+package Interpreter;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The errors found by one compilation, kept in its CompilationContext. Errors are stored as they were reported,
+ * and only formatted, through MessageTemplate, when they are written out.
+ * An error identical to one already kept, with the same type, position and details, is counted but not kept
+ * again. Past the limit, errors are only counted too.
+ */
+class Diagnostics {
+
+    private static final int CHUNK = 8192;     //How many characters of messages to gather before printing them.
+
+    private final List<CompileError> errors = new ArrayList<>();
+    private final Set<CompileError> seen = new HashSet<>();
+    private int limit = Integer.MAX_VALUE;
+    private boolean deduplicate = true;
+    private int repeated = 0;
+    private int overLimit = 0;
+
+    /**
+     * @param limit The most errors to keep; the first is always kept.
+     */
+    void setLimit(int limit){
+        this.limit = Math.max(limit, 1);
+    }
+
+    /**
+     * @param deduplicate false to keep every error, even identical ones.
+     */
+    void setDeduplicate(boolean deduplicate){
+        this.deduplicate = deduplicate;
+    }
+
+    /**
+     * @return false if the error was only counted, as a repeat or over the limit.
+     */
+    boolean add(CompileError error){
+        if(deduplicate && !seen.add(error)){
+            repeated++;
+            return false;
+        }
+        if(errors.size() >= limit){
+            overLimit++;
+            return false;
+        }
+        errors.add(error);
+        return true;
+    }
+
+    /**
+     * @return The errors kept, in the order they were found.
+     */
+    List<CompileError> errors(){
+        return errors;
+    }
+
+    /**
+     * @return How many errors were found, including any not kept.
+     */
+    int count(){
+        return errors.size() + repeated + overLimit;
+    }
+
+    boolean isEmpty(){
+        return errors.isEmpty();
+    }
+
+    /**
+     * Writes each error kept on a line of its own, then how many were not kept, if any.
+     * The text goes through the stream's own charset, the one everything else printed to it uses, a few thousand
+     * characters at a time.
+     * @param out Where to write. It is flushed but not closed.
+     * @param context Where the errors were found, for the locale of their messages.
+     */
+    void writeTo(PrintStream out, CompilationContext context){
+        StringBuilder text = new StringBuilder();
+        try{
+            for(CompileError error: errors){
+                error.format(text, context.locale);
+                text.append(System.lineSeparator());
+                if(text.length() >= CHUNK){
+                    out.print(text);
+                    text.setLength(0);
+                }
+            }
+        } catch (IOException e){
+            throw new UncheckedIOException(e);     //A StringBuilder never throws it.
+        }
+        if(repeated + overLimit > 0){
+            text.append(String.format(context.message("errorsNotShown"), repeated + overLimit, overLimit, repeated));
+            text.append(System.lineSeparator());
+        }
+        out.print(text);
+        out.flush();
+    }
+}
@@ -0,0 +1,80 @@
+package Interpreter;
+
+/**
+ * Something that can run syntax trees. Picked with the -p flag; every engine must give the same results.
+ */
+interface Engine {
+
+    /**
+     * The names -p accepts, the default first. A file's top-level expressions each run once, so jit, which only
+     * compiles an expression after JitEngine.THRESHOLD runs, interprets everything from the command line.
+     */
+    String[] NAMES = {"tree", "vm", "unboxed", "nodes", "jit", "flat", "shared", "stack"};
+
+    /**
+     * An expression made ready to run by an engine, e.g. compiled. It can be run any number of times.
+     */
+    interface Program {
+        Object run();
+    }
+
+    /**
+     * Does any work needed before an expression can run.
+     * @param expression The expression.
+     * @return Something that evaluates it.
+     */
+    Program prepare(Expression expression);
+
+    /**
+     * @return true if this engine may prepare expressions, and run their programs, on different threads at the
+     *         same time.
+     */
+    default boolean isThreadSafe(){
+        return true;
+    }
+
+    /**
+     * Stops anything the engine runs in the background, once nothing more will be prepared or run with it.
+     */
+    default void close(){
+    }
+
+    /**
+     * Evaluates an expression once.
+     * @param expression The expression.
+     * @return Its value.
+     */
+    default Object evaluate(Expression expression){
+        return prepare(expression).run();
+    }
+
+    /**
+     * Finds an engine by the name given to -p.
+     * @param name One of NAMES, or null for the default.
+     * @return The engine, or null if there is none by that name.
+     */
+    static Engine named(String name){
+        if(name == null){
+            name = NAMES[0];
+        }
+        switch(name){
+            case "tree":
+                return new Interpreter();
+            case "vm":
+                return new VirtualMachine();
+            case "unboxed":
+                return new Interpreter(true);
+            case "nodes":
+                return new NodeBuilder();
+            case "jit":
+                return new JitEngine();
+            case "flat":
+                return FlatTree::prepare;
+            case "shared":
+                return new SharingInterpreter();
+            case "stack":
+                return new StackInterpreter();
+        }
+        return null;
+    }
+}
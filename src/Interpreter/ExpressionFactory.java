@@ -0,0 +1,204 @@
+package Interpreter;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Makes the Parser's Expression nodes. The plain factory makes a new node every time. HashConsing instead gives
+ * back the node it made before for an identical subtree, so repeated subexpressions become one shared node and
+ * the trees become a DAG.
+ */
+class ExpressionFactory {
+
+    static final ExpressionFactory PLAIN = new ExpressionFactory();
+
+    Expression binary(Expression left, Token operator, Expression right){
+        return new Expression.Binary(left, operator, right);
+    }
+
+    Expression unary(Token operator, Expression right){
+        return new Expression.Unary(operator, right);
+    }
+
+    Expression ternary(Expression.Ternary.Type type, Expression left, Expression center, Expression right){
+        return new Expression.Ternary(type, left, center, right);
+    }
+
+    Expression grouping(Expression expression){
+        return new Expression.Grouping(expression);
+    }
+
+    Expression literal(Object value){
+        return new Expression.Literal(value);
+    }
+
+    /**
+     * Shares identical subtrees. Two nodes are identical if they are the same kind with the same operator and
+     * value, and have the very same children; since children are shared first, that makes the whole subtrees
+     * identical. A shared operator node keeps the Token it was first made with.
+     */
+    static class HashConsing extends ExpressionFactory {
+        private final Map<Key, Expression> table = new HashMap<>();
+        private int made = 0;
+        private int reused = 0;
+
+        @Override
+        Expression binary(Expression left, Token operator, Expression right){
+            Key key = new Key(Expression.Binary.class, operator.type, left, right, null);
+            Expression shared = lookup(key);
+            return shared != null ? shared : add(key, super.binary(left, operator, right));
+        }
+
+        @Override
+        Expression unary(Token operator, Expression right){
+            Key key = new Key(Expression.Unary.class, operator.type, right, null, null);
+            Expression shared = lookup(key);
+            return shared != null ? shared : add(key, super.unary(operator, right));
+        }
+
+        @Override
+        Expression ternary(Expression.Ternary.Type type, Expression left, Expression center, Expression right){
+            Key key = new Key(Expression.Ternary.class, type, left, center, right);
+            Expression shared = lookup(key);
+            return shared != null ? shared : add(key, super.ternary(type, left, center, right));
+        }
+
+        @Override
+        Expression grouping(Expression expression){
+            Key key = new Key(Expression.Grouping.class, null, expression, null, null);
+            Expression shared = lookup(key);
+            return shared != null ? shared : add(key, super.grouping(expression));
+        }
+
+        @Override
+        Expression literal(Object value){
+            Key key = new Key(Expression.Literal.class, value, null, null, null);
+            Expression shared = lookup(key);
+            return shared != null ? shared : add(key, super.literal(value));
+        }
+
+        /**
+         * Shares the subtrees of a tree that was made by another factory, and subtrees it has in common with
+         * anything made by this one.
+         * @return The shared tree, which is the expression itself if it was not changed.
+         */
+        Expression intern(Expression expression){
+            if(expression instanceof Expression.Binary){
+                Expression.Binary binary = (Expression.Binary) expression;
+                Expression left = intern(binary.left);
+                Expression right = intern(binary.right);
+                return share(new Key(Expression.Binary.class, binary.operator.type, left, right, null), expression,
+                        left == binary.left && right == binary.right);
+            } else if(expression instanceof Expression.Unary){
+                Expression.Unary unary = (Expression.Unary) expression;
+                Expression right = intern(unary.right);
+                return share(new Key(Expression.Unary.class, unary.operator.type, right, null, null), expression,
+                        right == unary.right);
+            } else if(expression instanceof Expression.Ternary){
+                Expression.Ternary ternary = (Expression.Ternary) expression;
+                Expression left = intern(ternary.left);
+                Expression center = intern(ternary.center);
+                Expression right = intern(ternary.right);
+                return share(new Key(Expression.Ternary.class, ternary.type, left, center, right), expression,
+                        left == ternary.left && center == ternary.center && right == ternary.right);
+            } else if(expression instanceof Expression.Grouping){
+                Expression.Grouping grouping = (Expression.Grouping) expression;
+                Expression inner = intern(grouping.expression);
+                return share(new Key(Expression.Grouping.class, null, inner, null, null), expression,
+                        inner == grouping.expression);
+            }
+            Expression.Literal literal = (Expression.Literal) expression;
+            return share(new Key(Expression.Literal.class, literal.value, null, null, null), expression, true);
+        }
+
+        /**
+         * @param unchanged true if the expression's children are already the shared ones, so it can be used as is.
+         */
+        private Expression share(Key key, Expression expression, boolean unchanged){
+            Expression shared = lookup(key);
+            if(shared != null){
+                return shared;
+            }
+            if(unchanged){
+                return add(key, expression);
+            }
+            //Rebuild it over the shared children, which are in the key.
+            if(expression instanceof Expression.Binary){
+                return add(key, super.binary(key.a, ((Expression.Binary) expression).operator, key.b));
+            } else if(expression instanceof Expression.Unary){
+                return add(key, super.unary(((Expression.Unary) expression).operator, key.a));
+            } else if(expression instanceof Expression.Ternary){
+                return add(key, super.ternary(((Expression.Ternary) expression).type, key.a, key.b, key.c));
+            }
+            return add(key, super.grouping(key.a));
+        }
+
+        /**
+         * @return How many nodes were asked for that already existed.
+         */
+        int reused(){
+            return reused;
+        }
+
+        /**
+         * @return How many distinct nodes there are.
+         */
+        int made(){
+            return made;
+        }
+
+        private Expression lookup(Key key){
+            Expression shared = table.get(key);
+            if(shared != null){
+                reused++;
+            }
+            return shared;
+        }
+
+        private Expression add(Key key, Expression expression){
+            table.put(key, expression);
+            made++;
+            return expression;
+        }
+    }
+
+    /**
+     * What makes a node what it is. Children are compared by identity, the operator or literal value by equals,
+     * which tells 0 from -0.
+     */
+    private static final class Key {
+        final Class<?> kind;
+        final Object value;
+        final Expression a;
+        final Expression b;
+        final Expression c;
+        private final int hash;
+
+        Key(Class<?> kind, Object value, Expression a, Expression b, Expression c){
+            this.kind = kind;
+            this.value = value;
+            this.a = a;
+            this.b = b;
+            this.c = c;
+            int hash = kind.hashCode() * 31 + Objects.hashCode(value);
+            hash = hash * 31 + System.identityHashCode(a);
+            hash = hash * 31 + System.identityHashCode(b);
+            this.hash = hash * 31 + System.identityHashCode(c);
+        }
+
+        @Override
+        public boolean equals(Object other){
+            if(!(other instanceof Key)){
+                return false;
+            }
+            Key key = (Key) other;
+            return kind == key.kind && a == key.a && b == key.b && c == key.c && Objects.equals(value, key.value);
+        }
+
+        @Override
+        public int hashCode(){
+            return hash;
+        }
+    }
+}
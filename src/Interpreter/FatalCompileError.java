@@ -1,7 +1,20 @@
 package Interpreter;
 
-public class FatalCompileError extends Exception{
-    public FatalCompileError(String message){
+/**
+ * Stops one compilation in a batch, where ending the process would stop all of them. See CompilationContext.
+ */
+public class FatalCompileError extends RuntimeException{
+    private final int exitCode;
+
+    public FatalCompileError(String message, int exitCode){
         super(message);
+        this.exitCode = exitCode;
+    }
+
+    /**
+     * @return The exit code the compilation would have ended the process with.
+     */
+    public int exitCode(){
+        return exitCode;
     }
 }
@@ -7,7 +7,11 @@ public class Flags {
 
     public enum flagType{
         Optimize,
-        OutputType
+        OutputType,
+        Threads,
+        ErrorLimit,
+        Report,
+        StackSafe
     }
 
     private Map<flagType, String> flags;
@@ -21,7 +25,23 @@ public class Flags {
         while(index < flagList.length){
             index = consume(flagList, index);
         }
-        System.out.println("Compiler flags:\n" + flags.toString());
+        CompilationContext.current().out.println("Compiler flags:\n" + flags.toString());
+    }
+
+    /**
+     * @param flag The flag to look up.
+     * @return Whether the flag was given.
+     */
+    public boolean isSet(flagType flag){
+        return flags.containsKey(flag);
+    }
+
+    /**
+     * @param flag The flag to look up.
+     * @return The flag's argument, or null if it was not given.
+     */
+    public String get(flagType flag){
+        return flags.get(flag);
     }
 
     private int consume(String[] flagList, int index){
@@ -36,6 +56,10 @@ public class Flags {
             flags.put(flagType.Optimize,"true");
             return index;
         }
+        if(flag.equals("-s")){
+            flags.put(flagType.StackSafe,"true");
+            return index;
+        }
         if(flag.equals("-p")){
             if(nextTokenArgument(flag, nextFlag)) {
                 flags.put(flagType.OutputType, nextFlag);
@@ -43,6 +67,25 @@ public class Flags {
             }
             return index;
         }
+        if(flag.equals("-r")){
+            if(nextTokenArgument(flag, nextFlag)) {
+                flags.put(flagType.Report, nextFlag);
+                index++;
+            }
+            return index;
+        }
+        if(flag.equals("-j") || flag.equals("-e")){
+            if(nextTokenArgument(flag, nextFlag)) {
+                if(nextFlag.matches("[1-9][0-9]{0,3}")){
+                    flags.put(flag.equals("-j") ? flagType.Threads : flagType.ErrorLimit, nextFlag);
+                } else {
+                    String[] details = {flag, nextFlag};
+                    CompileError.enqueue(CompileError.Error.BadFlagArgument, 0, 0, details, false);
+                }
+                index++;
+            }
+            return index;
+        }
         String[] details = {flag};
         CompileError.enqueue(CompileError.Error.UnrecognizedFlag, 0, 0, details, false);
         return index;
@@ -0,0 +1,217 @@
+package Interpreter;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Syntax trees stored flat in a few arrays instead of as Expression objects, for -p flat.
+ * Each node is an index into the arrays, which hold its kind, its operator and its children's indices; a literal
+ * holds the index of its value instead. Many trees can share one FlatTree, each known by the index of its root.
+ * There are no Tokens: only the operator's TokenType is kept, and which of the tree's few distinct lexemes it was
+ * written as, e.g. "!" or "not", for printing.
+ */
+final class FlatTree {
+
+    //Node kinds.
+    static final byte LITERAL = 0;      //first: index into constants.
+    static final byte GROUPING = 1;     //first: the expression.
+    static final byte UNARY = 2;        //first: the operand.
+    static final byte BINARY = 3;       //first, second: the operands.
+    static final byte TERNARY = 4;      //first: the condition. second, third: the branches.
+
+    private static final Lexer.TokenType[] TYPES = Lexer.TokenType.values();
+
+    private byte[] kinds = new byte[64];
+    private byte[] operators = new byte[64];    //TokenType ordinals.
+    private byte[] spellings = new byte[64];    //Indices into lexemes.
+    private int[] first = new int[64];
+    private int[] second = new int[64];
+    private int[] third = new int[64];
+    private int size = 0;
+    private Object[] constants = new Object[16];
+    private int constantCount = 0;
+    private String[] lexemes = new String[8];
+    private int lexemeCount = 0;
+
+    /**
+     * Converts expressions into one FlatTree.
+     * @param expressions The expressions.
+     * @param roots Filled with the index of each expression's root, in the same order.
+     */
+    static FlatTree of(List<Expression> expressions, int[] roots){
+        FlatTree tree = new FlatTree();
+        Converter converter = tree.new Converter();
+        for(int i = 0; i < expressions.size(); i++){
+            roots[i] = expressions.get(i).accept(converter);
+        }
+        tree.trim();
+        return tree;
+    }
+
+    /**
+     * The engine for -p flat: converts the expression on its own and evaluates that.
+     */
+    static Engine.Program prepare(Expression expression){
+        FlatTree tree = new FlatTree();
+        int root = expression.accept(tree.new Converter());
+        return () -> tree.evaluate(root);
+    }
+
+    /**
+     * @return How many nodes there are.
+     */
+    int size(){
+        return size;
+    }
+
+    /**
+     * Evaluates a node, the same way the Interpreter evaluates an Expression.
+     * @param node The node's index.
+     * @return Its value.
+     */
+    Object evaluate(int node){
+        switch(kinds[node]){
+            case LITERAL:
+                return constants[first[node]];
+            case GROUPING:
+                return evaluate(first[node]);
+            case UNARY:
+                return Operators.unary(TYPES[operators[node]], evaluate(first[node]));
+            case BINARY:
+                Object left = evaluate(first[node]);
+                Object right = evaluate(second[node]);
+                return Operators.binary(TYPES[operators[node]], left, right);
+            default:
+                return Operators.isTruthy(evaluate(first[node])) ? evaluate(second[node]) : evaluate(third[node]);
+        }
+    }
+
+    /**
+     * Prints a node the way AstPrinter prints an Expression.
+     * @param node The node's index.
+     */
+    String print(int node){
+        StringBuilder builder = new StringBuilder();
+        print(node, builder);
+        return builder.toString();
+    }
+
+    private void print(int node, StringBuilder builder){
+        switch(kinds[node]){
+            case LITERAL:
+                Object value = constants[first[node]];
+                builder.append(value == null ? "nil" : value.toString());
+                return;
+            case GROUPING:
+                builder.append("(group ");
+                print(first[node], builder);
+                break;
+            case UNARY:
+                builder.append("(").append(lexemes[spellings[node] & 0xFF]).append(" ");
+                print(first[node], builder);
+                break;
+            case BINARY:
+                builder.append("(").append(lexemes[spellings[node] & 0xFF]).append(" ");
+                print(first[node], builder);
+                builder.append(" ");
+                print(second[node], builder);
+                break;
+            default:
+                builder.append("(").append(Expression.Ternary.Type.CONDITIONAL).append(" ");
+                print(first[node], builder);
+                builder.append(" ");
+                print(second[node], builder);
+                builder.append(" ");
+                print(third[node], builder);
+        }
+        builder.append(")");
+    }
+
+    /**
+     * Shrinks the arrays to what is used, once no more nodes will be added.
+     */
+    private void trim(){
+        kinds = Arrays.copyOf(kinds, size);
+        operators = Arrays.copyOf(operators, size);
+        spellings = Arrays.copyOf(spellings, size);
+        first = Arrays.copyOf(first, size);
+        second = Arrays.copyOf(second, size);
+        third = Arrays.copyOf(third, size);
+        constants = Arrays.copyOf(constants, constantCount);
+    }
+
+    private int add(byte kind, Token operator, int a, int b, int c){
+        if(size == kinds.length){
+            int capacity = size * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            operators = Arrays.copyOf(operators, capacity);
+            spellings = Arrays.copyOf(spellings, capacity);
+            first = Arrays.copyOf(first, capacity);
+            second = Arrays.copyOf(second, capacity);
+            third = Arrays.copyOf(third, capacity);
+        }
+        kinds[size] = kind;
+        if(operator != null){
+            operators[size] = (byte) operator.type.ordinal();
+            spellings[size] = (byte) spelling(operator.lexeme);
+        }
+        first[size] = a;
+        second[size] = b;
+        third[size] = c;
+        return size++;
+    }
+
+    /**
+     * @return The index of a lexeme in lexemes, added if it is not there yet. There are only ever a few, one or two
+     * for each operator, so they are searched one by one.
+     */
+    private int spelling(String lexeme){
+        for(int i = 0; i < lexemeCount; i++){
+            if(lexemes[i].equals(lexeme)){
+                return i;
+            }
+        }
+        if(lexemeCount == lexemes.length){
+            lexemes = Arrays.copyOf(lexemes, lexemeCount * 2);
+        }
+        lexemes[lexemeCount] = lexeme;
+        return lexemeCount++;
+    }
+
+    /**
+     * Appends an Expression's nodes, children first, and gives the index of its root.
+     */
+    private class Converter implements Expression.Visitor<Integer> {
+        @Override
+        public Integer visitLiteralExpression(Expression.Literal expression){
+            if(constantCount == constants.length){
+                constants = Arrays.copyOf(constants, constantCount * 2);
+            }
+            constants[constantCount] = expression.value;
+            return add(LITERAL, null, constantCount++, 0, 0);
+        }
+
+        @Override
+        public Integer visitGroupingExpression(Expression.Grouping expression){
+            return add(GROUPING, null, expression.expression.accept(this), 0, 0);
+        }
+
+        @Override
+        public Integer visitUnaryExpression(Expression.Unary expression){
+            return add(UNARY, expression.operator, expression.right.accept(this), 0, 0);
+        }
+
+        @Override
+        public Integer visitBinaryExpression(Expression.Binary expression){
+            int left = expression.left.accept(this);
+            return add(BINARY, expression.operator, left, expression.right.accept(this), 0);
+        }
+
+        @Override
+        public Integer visitTernaryExpression(Expression.Ternary expression){
+            int condition = expression.left.accept(this);
+            int center = expression.center.accept(this);
+            return add(TERNARY, null, condition, center, expression.right.accept(this));
+        }
+    }
+}
@@ -0,0 +1,409 @@
+package Interpreter;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Source code that is being edited, kept lexed and parsed as it changes.
+ * After an edit only the tokens around the edit are lexed again, and only the top level expressions
+ * (the code between semicolons) that contain those tokens are parsed again.
+ * Errors are not reported to the compilation, but kept with the unit they were found in, and replaced whenever its
+ * tokens are lexed or parsed again, so that errors in code that has since been fixed go away.
+ */
+class IncrementalDocument {
+
+    /**
+     * How many characters past the end of a token the Lexer may have looked at to decide where it ends,
+     * e.g. "1." is only part of a number if a digit follows it.
+     */
+    private static final int LOOKAHEAD = 2;
+
+    /**
+     * The code between two semicolons, and what it parsed into.
+     */
+    private static class Unit {
+        int from;   //First token.
+        int to;     //The semicolon or EOF token after the last one.
+        Expression expression;
+        final List<Found> errors = new ArrayList<>();
+
+        Unit(int from, int to, Expression expression){
+            this.from = from;
+            this.to = to;
+            this.expression = expression;
+        }
+    }
+
+    /**
+     * An error found in the document, kept relative to a token so that it moves with the code around it.
+     */
+    private static class Found {
+        static final int PARSED = -1;   //The owner of errors found by parsing a unit, which go when it is parsed again.
+
+        final CompileError error;
+        int owner;      //The token whose lexing found the error; lexing that token again replaces it.
+        int anchor;     //The last token at or before the error, or the first one after it if there is none.
+        int lines;      //How many lines after the anchor the error is.
+        int pos;        //The error's position, relative to the anchor's if they are on the same line.
+
+        Found(CompileError error, int owner){
+            this.error = error;
+            this.owner = owner;
+        }
+
+        /**
+         * Picks the anchor among some tokens.
+         * @param from The first token it may be.
+         * @param to The last token it may be.
+         */
+        void place(TokenBuffer tokens, int from, int to){
+            anchor = Math.max(from, 0);
+            for(int i = to; i > anchor; i--){
+                //EOF is always at position 0, so it does not move sideways with its line; only errors at EOF itself,
+                //which are at position 0 too, go with it.
+                if(tokens.type(i) == Lexer.TokenType.EOF
+                        ? tokens.line(i) == error.line() && error.pos() == 0
+                        : tokens.line(i) < error.line() || tokens.line(i) == error.line() && tokens.pos(i) <= error.pos()){
+                    anchor = i;
+                    break;
+                }
+            }
+            lines = error.line() - tokens.line(anchor);
+            pos = lines == 0 ? error.pos() - tokens.pos(anchor) : error.pos();
+        }
+
+        void shift(int tokenDelta){
+            if(owner != PARSED){
+                owner += tokenDelta;
+            }
+            anchor += tokenDelta;
+        }
+
+        /**
+         * @return The error, where it is now.
+         */
+        CompileError at(TokenBuffer tokens){
+            int line = tokens.line(anchor) + lines;
+            return error.movedTo(line, lines == 0 ? tokens.pos(anchor) + pos : pos);
+        }
+    }
+
+    private final KeywordTable keywords;
+    private final TokenBuffer tokens;
+    private final List<Unit> units = new ArrayList<>();
+    private List<Found> trailing = new ArrayList<>();  //Errors found after the last unit, e.g. in a comment.
+    private final StringBuilder code;
+    private final SourceFile source;
+
+    private int relexed;
+    private int reparsed;
+
+    /**
+     * Lexes and parses a whole document.
+     * @param code The initial source code.
+     * @param keywords The keywords of the language the code is written in.
+     */
+    IncrementalDocument(String code, KeywordTable keywords){
+        this.code = new StringBuilder(code);
+        this.source = new SourceFile(this.code);
+        this.keywords = keywords;
+        tokens = new TokenBuffer(source);
+        CompilationContext.run(scratch(), () -> {
+            Lexer lexer = new Lexer(source, keywords);
+            List<Found> found = new ArrayList<>();
+            while(lexInto(lexer, tokens, found)){
+                //Keep going until the code is used up.
+            }
+            tokens.add(Lexer.TokenType.EOF, this.code.length(), 0, lexer.line(), 0, null);
+            place(found, 0);
+            units.addAll(split(0, tokens.size() - 1));
+            distribute(found, units);
+        });
+        relexed = tokens.size();
+        reparsed = units.size();
+    }
+
+    /**
+     * @return A context of its own for lexing and parsing, to collect the errors found.
+     */
+    private static CompilationContext scratch(){
+        CompilationContext context = CompilationContext.current();
+        return new CompilationContext(context.locale, context.out, false);
+    }
+
+    /**
+     * Applies a text edit and brings the tokens and expressions up to date.
+     * @param offset Where the edit starts.
+     * @param removed How many characters it removes.
+     * @param inserted The text it inserts in their place.
+     */
+    void edit(int offset, int removed, String inserted){
+        CompilationContext.run(scratch(), () -> apply(offset, removed, inserted));
+    }
+
+    private void apply(int offset, int removed, String inserted){
+        code.replace(offset, offset + removed, inserted);
+        source.edited(offset, removed, inserted);
+        int delta = inserted.length() - removed;
+        int damageEnd = offset + inserted.length();
+
+        //Tokens only start outside strings and comments, so the Lexer can pick up again at the end of any token.
+        int restart = firstAffected(offset);
+        Lexer lexer = restart == 0
+                ? new Lexer(source, keywords)
+                : new Lexer(source, keywords, tokens.end(restart - 1), tokens.line(restart - 1), tokens.pos(restart - 1));
+
+        //Lex until a new token starts where an old one did, past the edit. Everything after that is unchanged.
+        TokenBuffer replacement = new TokenBuffer(source, 16);
+        List<Found> found = new ArrayList<>();
+        int eof = tokens.size() - 1;
+        int old = restart;
+        int resync = -1;
+        while(resync == -1 && lexInto(lexer, replacement, found)){
+            int start = replacement.start(replacement.size() - 1);
+            if(start < damageEnd){
+                continue;
+            }
+            while(old < eof && tokens.start(old) < start - delta){
+                old++;
+            }
+            if(old < eof && tokens.start(old) == start - delta){
+                resync = old;
+            }
+        }
+
+        int replacedEnd;
+        if(resync == -1){
+            replacement.add(Lexer.TokenType.EOF, code.length(), 0, lexer.line(), 0, null);
+            replacedEnd = tokens.size();
+        } else {
+            replacedEnd = resync + 1;
+        }
+        int tokenDelta = replacement.size() - (replacedEnd - restart);
+
+        int shiftLine = tokens.line(replacedEnd - 1);
+        int shiftPos = tokens.pos(replacedEnd - 1);
+        int last = replacement.size() - 1;
+        tokens.replace(restart, replacedEnd, replacement);
+        if(resync != -1){
+            tokens.shift(restart + replacement.size(), delta,
+                    replacement.line(last) - shiftLine, shiftLine, replacement.pos(last) - shiftPos);
+        }
+        relexed = replacement.size();
+        place(found, restart);
+
+        reparse(restart, replacedEnd, tokenDelta, found);
+    }
+
+    /**
+     * Lexes one more token, and keeps the errors found on the way as found by that token.
+     * @param found Where to add the errors, owned by the index of their token in the buffer.
+     * @return false if the code ran out before another token was found; its errors are owned by the EOF to come.
+     */
+    private static boolean lexInto(Lexer lexer, TokenBuffer into, List<Found> found){
+        List<CompileError> errors = CompilationContext.current().diagnostics.errors();
+        int before = errors.size();
+        boolean more = lexer.lexInto(into);
+        for(int i = before; i < errors.size(); i++){
+            found.add(new Found(errors.get(i), more ? into.size() - 1 : into.size()));
+        }
+        return more;
+    }
+
+    /**
+     * Anchors errors found while lexing, once their tokens are in the document.
+     * @param found The errors, owned by tokens counted from the first one lexed.
+     * @param first The first token lexed.
+     */
+    private void place(List<Found> found, int first){
+        for(Found error: found){
+            error.owner += first;
+            error.place(tokens, error.owner - 1, error.owner);
+        }
+    }
+
+    /**
+     * Gives each error found while lexing to the unit its token is in.
+     */
+    private void distribute(List<Found> found, List<Unit> into){
+        found.sort(Comparator.comparingInt(error -> error.owner));
+        int unit = 0;
+        for(Found error: found){
+            while(unit < into.size() && into.get(unit).to < error.owner){
+                unit++;
+            }
+            (unit < into.size() ? into.get(unit).errors : trailing).add(error);
+        }
+    }
+
+    /**
+     * Re-splits and re-parses the units that overlap replaced tokens, and moves the ones after them.
+     * @param from The first replaced token.
+     * @param to The token after the last replaced one, before the edit.
+     * @param tokenDelta How many more tokens there are than before the edit.
+     * @param found The errors found lexing the replacement tokens.
+     */
+    private void reparse(int from, int to, int tokenDelta, List<Found> found){
+        int first = 0;
+        while(first < units.size() - 1 && units.get(first).to < from){
+            first++;
+        }
+        int end = first;
+        while(end < units.size() && units.get(end).from < to){
+            end++;
+        }
+
+        int splitFrom = units.isEmpty() ? 0 : units.get(first).from;
+        int splitTo = end < units.size() ? units.get(end).from - 1 + tokenDelta : tokens.size() - 1;
+        List<Unit> replaced = split(splitFrom, splitTo);
+
+        //The errors lexing found in the replaced units stay, unless their tokens were lexed again.
+        for(int i = first; i < end; i++){
+            keepLexed(units.get(i).errors, from, to, tokenDelta, found);
+        }
+        if(end == units.size()){
+            List<Found> previous = trailing;
+            trailing = new ArrayList<>();
+            keepLexed(previous, from, to, tokenDelta, found);
+        } else {
+            for(Found error: trailing){
+                error.shift(tokenDelta);
+            }
+        }
+        distribute(found, replaced);
+
+        for(int i = end; i < units.size(); i++){
+            Unit unit = units.get(i);
+            unit.from += tokenDelta;
+            unit.to += tokenDelta;
+            for(Found error: unit.errors){
+                error.shift(tokenDelta);
+            }
+        }
+        units.subList(first, end).clear();
+        units.addAll(first, replaced);
+        reparsed = replaced.size();
+    }
+
+    /**
+     * Keeps the errors lexing found, unless their tokens were replaced, and moves them with their tokens.
+     * @param kept Where to add the ones kept.
+     */
+    private static void keepLexed(List<Found> errors, int from, int to, int tokenDelta, List<Found> kept){
+        for(Found error: errors){
+            if(error.owner == Found.PARSED || error.owner >= from && error.owner < to){
+                continue;
+            }
+            if(error.owner >= to){
+                error.shift(tokenDelta);
+            }
+            kept.add(error);
+        }
+    }
+
+    /**
+     * Splits tokens into units at semicolons and parses each one.
+     * @param from The first token.
+     * @param to The last token to include, a semicolon or EOF.
+     * @return The units.
+     */
+    private List<Unit> split(int from, int to){
+        List<Unit> split = new ArrayList<>();
+        List<CompileError> errors = CompilationContext.current().diagnostics.errors();
+        int unitStart = from;
+        for(int i = from; i <= to; i++){
+            Lexer.TokenType type = tokens.type(i);
+            if(type == Lexer.TokenType.SEMICOLON || type == Lexer.TokenType.EOF){
+                //An EOF right after the last semicolon does not start another expression.
+                if(type != Lexer.TokenType.EOF || i > unitStart){
+                    int before = errors.size();
+                    Unit unit = new Unit(unitStart, i, new Parser(tokens, unitStart, i).parseStatement());
+                    for(int e = before; e < errors.size(); e++){
+                        Found error = new Found(errors.get(e), Found.PARSED);
+                        error.place(tokens, unitStart, i);
+                        unit.errors.add(error);
+                    }
+                    split.add(unit);
+                }
+                unitStart = i + 1;
+            }
+        }
+        return split;
+    }
+
+    /**
+     * Finds the first token whose lexing may have looked at a character at or after the offset.
+     * @param offset Where the edit starts.
+     * @return The index of the token.
+     */
+    private int firstAffected(int offset){
+        int low = 0;
+        int high = tokens.size() - 1;   //EOF is always affected.
+        while(low < high){
+            int middle = (low + high) >>> 1;
+            if(tokens.end(middle) + LOOKAHEAD > offset){
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return The current source code.
+     */
+    String code(){
+        return code.toString();
+    }
+
+    /**
+     * @return Every token of the current code, ending with EOF.
+     */
+    TokenBuffer tokens(){
+        return tokens;
+    }
+
+    /**
+     * @return The top level expressions, in order. An expression that failed to parse is null.
+     */
+    List<Expression> expressions(){
+        List<Expression> expressions = new ArrayList<>();
+        for(Unit unit: units){
+            expressions.add(unit.expression);
+        }
+        return expressions;
+    }
+
+    /**
+     * @return The errors in the current code, in order, at where they are now.
+     */
+    List<CompileError> errors(){
+        List<CompileError> errors = new ArrayList<>();
+        for(Unit unit: units){
+            for(Found error: unit.errors){
+                errors.add(error.at(tokens));
+            }
+        }
+        for(Found error: trailing){
+            errors.add(error.at(tokens));
+        }
+        errors.sort(Comparator.comparingInt(CompileError::line).thenComparingInt(CompileError::pos));
+        return errors;
+    }
+
+    /**
+     * @return How many tokens the last edit lexed.
+     */
+    int relexed(){
+        return relexed;
+    }
+
+    /**
+     * @return How many expressions the last edit parsed.
+     */
+    int reparsed(){
+        return reparsed;
+    }
+}
@@ -1,6 +1,34 @@
 package Interpreter;
 
-public class Interpreter implements Expression.Visitor<Object> {
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * The tree-walking engine: evaluates a syntax tree by visiting it.
+ * In unboxed mode, subtrees that NumericInference found numeric are computed as primitive doubles by
+ * evaluateDouble, so no Double is made until a number leaves a numeric subtree.
+ */
+public class Interpreter implements Expression.Visitor<Object>, Engine {
+
+    private final boolean unboxed;
+    //The numeric subtrees of the expression this evaluates, in unboxed mode. Empty for the engine itself.
+    private final Set<Expression> numeric;
+
+    public Interpreter(){
+        this(false);
+    }
+
+    /**
+     * @param unboxed true to evaluate numeric subtrees without boxing. prepare() finds them first.
+     */
+    Interpreter(boolean unboxed){
+        this(unboxed, Collections.emptySet());
+    }
+
+    private Interpreter(boolean unboxed, Set<Expression> numeric){
+        this.unboxed = unboxed;
+        this.numeric = numeric;
+    }
 
     @Override
     public Object visitLiteralExpression(Expression.Literal expression){
@@ -12,97 +40,119 @@ public class Interpreter implements Expression.Visitor<Object> {
         return evaluate(expression.expression);
     }
 
+    @Override
     public Object evaluate(Expression expression){
         return expression.accept(this);
     }
 
     @Override
-    public Object visitUnaryExpression(Expression.Unary expression){
-        Object right = evaluate(expression.right);
-
-        switch(expression.operator.type){
-            case MINUS:
-                return -(double)right;
-            case BANG:
-                return isTruthy(right);
-            case B_NOT:
-                if(right instanceof Double){
-                    double number = (double) right;
-                    return (double)~(int)((double) right); //hohoho what an evil thing this would be to do.
-                }
+    public Program prepare(Expression expression){
+        if(unboxed){
+            //Each program gets its own, so programs can still be prepared and run on several threads at once.
+            Interpreter program = new Interpreter(true, NumericInference.infer(expression));
+            if(program.numeric.contains(expression)){
+                return () -> program.evaluateDouble(expression);
+            }
+            return () -> program.evaluate(expression);
         }
-
-        return null;
+        return () -> evaluate(expression);
     }
 
-    private boolean isTruthy(Object object){
-        if(object == null){
-            return false;
-        }
-        if(object instanceof Boolean) {
-            return (boolean)object;
+    /**
+     * Evaluates a subtree NumericInference found numeric. It gives the same number evaluate() would,
+     * without boxing anything along the way.
+     * @param expression A numeric expression.
+     * @return Its value.
+     */
+    double evaluateDouble(Expression expression){
+        if(expression instanceof Expression.Binary){
+            Expression.Binary binary = (Expression.Binary) expression;
+            double left = evaluateDouble(binary.left);
+            double right = evaluateDouble(binary.right);
+            switch(binary.operator.type){
+                case PLUS:
+                    return left + right;
+                case MINUS:
+                    return left - right;
+                case STAR:
+                    return left * right;
+                case SLASH:
+                    return left / right;
+                case STAR_STAR:
+                    return Math.pow(left, right);
+                case LEFT_SHIFT:
+                    return (int)left << (int)right;
+                case RIGHT_SHIFT:
+                    return (int)left >> (int)right;
+            }
+        } else if(expression instanceof Expression.Literal){
+            return (double)((Expression.Literal) expression).value;
+        } else if(expression instanceof Expression.Unary){
+            Expression.Unary unary = (Expression.Unary) expression;
+            double right = evaluateDouble(unary.right);
+            return unary.operator.type == Lexer.TokenType.MINUS ? -right : ~(int)right;
+        } else if(expression instanceof Expression.Grouping){
+            return evaluateDouble(((Expression.Grouping) expression).expression);
+        } else if(expression instanceof Expression.Ternary){
+            Expression.Ternary ternary = (Expression.Ternary) expression;
+            //A numeric condition is always true, and evaluating it can do nothing else, so it is skipped.
+            boolean condition = numeric.contains(ternary.left) || Operators.isTruthy(evaluate(ternary.left));
+            return evaluateDouble(condition ? ternary.center : ternary.right);
         }
-        return true;
+        throw new IllegalArgumentException("Not a numeric expression");
     }
 
-    public Object visitBinaryExpression(Expression.Binary expression){
-        Object left = evaluate(expression.left);
-        Object right = evaluate(expression.right);
-
-        switch(expression.operator.type){
-            case MINUS:
-                return (double)left - (double)right;
-            case SLASH:
-                return (double)left / (double)right;
-            case STAR:
-                return (double)left * (double)right;
-            case STAR_STAR:
-                return Math.pow((double)left, (double)right);
-            case PLUS:
-                if(left instanceof Double && right instanceof Double){
-                    return (double) left + (double) right;
-                }
-                if(left instanceof String && right instanceof String){
-                    return left.toString() + right.toString();
-                }
-                if((left instanceof String && right instanceof Double) ||
-                        (left instanceof Double && right instanceof String)){
-                    return left.toString() + right.toString();
-                }
-            case GREATER:
-                return (double)left > (double)right;
-            case GREATER_EQUAL:
-                return (double)left >= (double)right;
-            case LESS:
-                return (double)left < (double)right;
-            case LESS_EQUAL:
-                return (double)left <= (double)right;
-            case BANG_EQUAL:
-                return !isEqual(left, right);
-            case EQUAL_EQUAL:
-                return isEqual(left, right);
+    @Override
+    public Object visitUnaryExpression(Expression.Unary expression){
+        if(unboxed && numeric.contains(expression)){
+            return evaluateDouble(expression);
         }
-
-        return null;
+        Object right = evaluate(expression.right);
+        return Operators.unary(expression.operator.type, right);
     }
 
-    private boolean isEqual(Object a, Object b){
-        if(a == null && b == null){
-            return true;
-        }
-        if(a == null){
-            return false;
+    public Object visitBinaryExpression(Expression.Binary expression){
+        //Nothing here is unboxed unless the left operand is numeric, so most nodes need only that one lookup.
+        if(unboxed && numeric.contains(expression.left)){
+            if(numeric.contains(expression)){
+                return evaluateDouble(expression);
+            }
+            if(!numeric.contains(expression.right)){
+                return Operators.binary(expression.operator.type, evaluateDouble(expression.left), evaluate(expression.right));
+            }
+            //A comparison of two numbers: the operands need not be boxed either.
+            double left = evaluateDouble(expression.left);
+            double right = evaluateDouble(expression.right);
+            switch(expression.operator.type){
+                case GREATER:
+                    return left > right;
+                case GREATER_EQUAL:
+                    return left >= right;
+                case LESS:
+                    return left < right;
+                case LESS_EQUAL:
+                    return left <= right;
+                case EQUAL_EQUAL:
+                    return Double.doubleToLongBits(left) == Double.doubleToLongBits(right);
+                case BANG_EQUAL:
+                    return Double.doubleToLongBits(left) != Double.doubleToLongBits(right);
+            }
+            return Operators.binary(expression.operator.type, left, right);
         }
-        return a.equals(b);
+        Object left = evaluate(expression.left);
+        Object right = evaluate(expression.right);
+        return Operators.binary(expression.operator.type, left, right);
     }
 
-
     @Override
     public Object visitTernaryExpression(Expression.Ternary expression) {
+        if(unboxed && numeric.contains(expression)){
+            return evaluateDouble(expression);
+        }
         Object condition = evaluate(expression.left);
         //System.out.println(condition);
         //System.out.println(isTruthy(condition));
-        if(isTruthy(condition)){
+        if(Operators.isTruthy(condition)){
             return evaluate(expression.center);
         } else {
             return evaluate(expression.right);
@@ -0,0 +1,347 @@
+package Interpreter;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compiles expressions to JVM classes for JitEngine. Each expression becomes Java source for one class
+ * implementing Engine.Program. The JDK's compiler (javax.tools) compiles a batch of them in memory, and each is
+ * loaded with Lookup.defineHiddenClass into this package, where it can call Operators and be unloaded with its
+ * program. HotSpot then compiles and inlines it like any other Java code.
+ *
+ * Numeric subtrees (see NumericInference) become plain double arithmetic. Operators that fail on anything but
+ * numbers, like - and <, are compiled as if their operands were numbers, behind a guard that throws Deoptimize
+ * if one is not; the caller then evaluates the expression with the Interpreter instead, which gives the real
+ * result or error. Everything else calls Operators, as the Interpreter does.
+ */
+class JitCompiler {
+
+    /**
+     * Thrown by compiled code when a value is not the type it was compiled for. It has no stack trace.
+     */
+    static final class Deoptimize extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private Deoptimize(){
+            super(null, null, false, false);
+        }
+    }
+
+    private static final Deoptimize DEOPTIMIZE = new Deoptimize();
+    private static final String CLASS_PREFIX = "JitCompiled";
+
+    private final JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+    private int classes = 0;
+
+    /**
+     * @return false when running without the JDK's compiler, e.g. on a bare JRE, so nothing can be compiled.
+     */
+    boolean available(){
+        return javac != null;
+    }
+
+    /**
+     * Used by compiled code to check that a value is a number.
+     */
+    static double guard(Object value){
+        if(value instanceof Double){
+            return (double) value;
+        }
+        throw DEOPTIMIZE;
+    }
+
+    /**
+     * Compiles expressions together, in one run of the Java compiler. If that run fails, e.g. because javac rejects
+     * one of them or overflows its stack on a deep one, each is compiled again on its own, so that one expression
+     * does not cost the rest of the batch.
+     * @param expressions The expressions.
+     * @return A program for each expression, in the same order, or null for any that failed to compile.
+     */
+    List<Engine.Program> compile(List<Expression> expressions){
+        List<Generated> generated = new ArrayList<>();
+        for(Expression expression: expressions){
+            String name = CLASS_PREFIX + classes++;
+            Source source = new Source(NumericInference.infer(expression));
+            try{
+                generated.add(new Generated(name, source.generate(name, expression), source.constants.toArray()));
+            } catch (StackOverflowError e){
+                generated.add(null);    //Too deep to write out; it stays interpreted.
+            }
+        }
+        List<Generated> together = new ArrayList<>(generated);
+        together.removeIf(source -> source == null);
+
+        List<Engine.Program> compiled = compileTogether(together);
+        if(compiled == null){
+            compiled = new ArrayList<>();
+            for(Generated source: together){
+                List<Engine.Program> alone = together.size() == 1 ? null : compileTogether(List.of(source));
+                compiled.add(alone == null ? null : alone.get(0));
+            }
+        }
+        List<Engine.Program> programs = new ArrayList<>();
+        int next = 0;
+        for(Generated source: generated){
+            programs.add(source == null ? null : compiled.get(next++));
+        }
+        return programs;
+    }
+
+    /**
+     * The Java source for one expression, and the constants its class is made with.
+     */
+    private static final class Generated {
+        final String name;
+        final String code;
+        final Object[] constants;
+
+        Generated(String name, String code, Object[] constants){
+            this.name = name;
+            this.code = code;
+            this.constants = constants;
+        }
+    }
+
+    /**
+     * @return A program for each source, or null if the Java compiler failed.
+     */
+    private List<Engine.Program> compileTogether(List<Generated> generated){
+        List<JavaFileObject> sources = new ArrayList<>();
+        for(Generated source: generated){
+            sources.add(new SimpleJavaFileObject(URI.create("string:///Interpreter/" + source.name + ".java"),
+                    JavaFileObject.Kind.SOURCE){
+                @Override
+                public CharSequence getCharContent(boolean ignoreEncodingErrors){
+                    return source.code;
+                }
+            });
+        }
+
+        Map<String, ByteArrayOutputStream> output = new HashMap<>();
+        JavaFileManager files = new ForwardingJavaFileManager<JavaFileManager>(javac.getStandardFileManager(null, null, null)){
+            @Override
+            public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind,
+                                                       FileObject sibling){
+                return new SimpleJavaFileObject(URI.create("bytes:///" + className.replace('.', '/') + ".class"), kind){
+                    @Override
+                    public OutputStream openOutputStream(){
+                        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                        output.put(className, bytes);
+                        return bytes;
+                    }
+                };
+            }
+        };
+        //Nothing javac says is printed, not even its report of a crash; an expression that fails stays interpreted.
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        List<String> options = Arrays.asList("-classpath", System.getProperty("java.class.path"), "-proc:none", "-g:none");
+        try{
+            if(!javac.getTask(Writer.nullWriter(), files, diagnostics, options, null, sources).call()){
+                return null;
+            }
+        } catch (RuntimeException | StackOverflowError e){
+            return null;
+        }
+
+        List<Engine.Program> programs = new ArrayList<>();
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        for(Generated source: generated){
+            ByteArrayOutputStream bytes = output.get("Interpreter." + source.name);
+            programs.add(bytes == null ? null : define(lookup, bytes.toByteArray(), source.constants));
+        }
+        return programs;
+    }
+
+    private static Engine.Program define(MethodHandles.Lookup lookup, byte[] bytes, Object[] constants){
+        try{
+            MethodHandles.Lookup hidden = lookup.defineHiddenClass(bytes, true);
+            return (Engine.Program) hidden.findConstructor(hidden.lookupClass(), MethodType.methodType(void.class, Object[].class))
+                    .invoke(constants);
+        } catch (Throwable e){
+            return null;
+        }
+    }
+
+    /**
+     * Writes the Java source for one expression. Literals other than numbers go in a constants array.
+     */
+    private static class Source {
+        final List<Object> constants = new ArrayList<>();
+        private final StringBuilder code = new StringBuilder();
+        private final Set<Expression> numeric;
+
+        Source(Set<Expression> numeric){
+            this.numeric = numeric;
+        }
+
+        String generate(String name, Expression expression){
+            code.append("package Interpreter;\n");
+            code.append("final class ").append(name).append(" implements Engine.Program {\n");
+            code.append("    private final Object[] constants;\n");
+            code.append("    ").append(name).append("(Object[] constants){ this.constants = constants; }\n");
+            code.append("    public Object run(){\n        return ");
+            object(expression);
+            code.append(";\n    }\n}\n");
+            return code.toString();
+        }
+
+        /**
+         * Code for the value of an expression as an Object.
+         */
+        private void object(Expression expression){
+            if(numeric.contains(expression)){
+                code.append("Double.valueOf(");
+                number(expression);
+                code.append(")");
+            } else if(expression instanceof Expression.Literal){
+                Object value = ((Expression.Literal) expression).value;
+                code.append("constants[").append(constants.size()).append("]");
+                constants.add(value);
+            } else if(expression instanceof Expression.Grouping){
+                object(((Expression.Grouping) expression).expression);
+            } else if(expression instanceof Expression.Unary){
+                Expression.Unary unary = (Expression.Unary) expression;
+                if(unary.operator.type == Lexer.TokenType.MINUS){
+                    code.append("Double.valueOf(-");
+                    guarded(unary.right);
+                    code.append(")");
+                } else {
+                    code.append("Operators.unary(Lexer.TokenType.").append(unary.operator.type.name()).append(", ");
+                    object(unary.right);
+                    code.append(")");
+                }
+            } else if(expression instanceof Expression.Binary){
+                binary((Expression.Binary) expression);
+            } else {
+                Expression.Ternary ternary = (Expression.Ternary) expression;
+                code.append("(Operators.isTruthy(");
+                object(ternary.left);
+                code.append(") ? ");
+                object(ternary.center);
+                code.append(" : ");
+                object(ternary.right);
+                code.append(")");
+            }
+        }
+
+        private void binary(Expression.Binary binary){
+            String operator = null;
+            boolean comparison = false;
+            switch(binary.operator.type){
+                case MINUS: operator = "-"; break;
+                case STAR: operator = "*"; break;
+                case SLASH: operator = "/"; break;
+                case GREATER: operator = ">"; comparison = true; break;
+                case GREATER_EQUAL: operator = ">="; comparison = true; break;
+                case LESS: operator = "<"; comparison = true; break;
+                case LESS_EQUAL: operator = "<="; comparison = true; break;
+            }
+
+            if(operator != null){
+                //These fail on anything but two numbers, so numbers are all they are compiled for.
+                code.append(comparison ? "Boolean.valueOf(" : "Double.valueOf(");
+                guarded(binary.left);
+                code.append(" ").append(operator).append(" ");
+                guarded(binary.right);
+                code.append(")");
+            } else if(numeric.contains(binary.left) && numeric.contains(binary.right)
+                    && (binary.operator.type == Lexer.TokenType.EQUAL_EQUAL || binary.operator.type == Lexer.TokenType.BANG_EQUAL)){
+                code.append("Boolean.valueOf(Double.doubleToLongBits(");
+                number(binary.left);
+                code.append(binary.operator.type == Lexer.TokenType.EQUAL_EQUAL ? ") == Double.doubleToLongBits(" : ") != Double.doubleToLongBits(");
+                number(binary.right);
+                code.append("))");
+            } else {
+                code.append("Operators.binary(Lexer.TokenType.").append(binary.operator.type.name()).append(", ");
+                object(binary.left);
+                code.append(", ");
+                object(binary.right);
+                code.append(")");
+            }
+        }
+
+        /**
+         * Code for the value of an expression as a double, deoptimizing if it is not a number.
+         */
+        private void guarded(Expression expression){
+            if(numeric.contains(expression)){
+                number(expression);
+            } else {
+                code.append("JitCompiler.guard(");
+                object(expression);
+                code.append(")");
+            }
+        }
+
+        /**
+         * Code for the value of a numeric expression as a double.
+         */
+        private void number(Expression expression){
+            if(expression instanceof Expression.Literal){
+                double value = (double) ((Expression.Literal) expression).value;
+                code.append("Double.longBitsToDouble(0x").append(Long.toHexString(Double.doubleToRawLongBits(value))).append("L)");
+            } else if(expression instanceof Expression.Grouping){
+                number(((Expression.Grouping) expression).expression);
+            } else if(expression instanceof Expression.Unary){
+                Expression.Unary unary = (Expression.Unary) expression;
+                code.append(unary.operator.type == Lexer.TokenType.MINUS ? "(-" : "((double) ~(int) ");
+                number(unary.right);
+                code.append(")");
+            } else if(expression instanceof Expression.Binary){
+                Expression.Binary binary = (Expression.Binary) expression;
+                switch(binary.operator.type){
+                    case STAR_STAR:
+                        code.append("Math.pow(");
+                        number(binary.left);
+                        code.append(", ");
+                        number(binary.right);
+                        code.append(")");
+                        return;
+                    case LEFT_SHIFT: case RIGHT_SHIFT:
+                        code.append("((double) ((int) ");
+                        number(binary.left);
+                        code.append(binary.operator.type == Lexer.TokenType.LEFT_SHIFT ? " << (int) " : " >> (int) ");
+                        number(binary.right);
+                        code.append("))");
+                        return;
+                }
+                code.append("(");
+                number(binary.left);
+                code.append(" ").append(binary.operator.lexeme).append(" ");
+                number(binary.right);
+                code.append(")");
+            } else {
+                Expression.Ternary ternary = (Expression.Ternary) expression;
+                if(numeric.contains(ternary.left)){
+                    number(ternary.center);     //A number is always true, and evaluating it can do nothing else.
+                    return;
+                }
+                code.append("(Operators.isTruthy(");
+                object(ternary.left);
+                code.append(") ? ");
+                number(ternary.center);
+                code.append(" : ");
+                number(ternary.right);
+                code.append(")");
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package Interpreter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * The tiered engine, for -p jit. Each expression starts out run by the Interpreter, which counts how often it
+ * runs. Once it has run THRESHOLD times it is queued for JitCompiler, and a background thread compiles everything
+ * queued together. The expression keeps being interpreted meanwhile, and runs the compiled class once it is ready.
+ * If the compiled class meets a value of a type it was not compiled for, the expression goes back to being
+ * interpreted for good. close() stops the thread.
+ *
+ * Main runs each of a file's top-level expressions once, so nothing reaches THRESHOLD from the command line and
+ * -p jit only interprets there, counting runs as it goes. Only code that runs expressions repeatedly, such as
+ * JitBenchmark, tiers up.
+ */
+class JitEngine implements Engine {
+
+    static final int THRESHOLD = 1000;
+    private static final int BATCH = 500;
+
+    private final Interpreter interpreter = new Interpreter();
+    private final JitCompiler compiler = new JitCompiler();
+    private final BlockingQueue<Tiered> queue = new LinkedBlockingQueue<>();
+    private final int threshold;
+    private Thread thread;
+    private volatile boolean closed = false;
+
+    JitEngine(){
+        this(THRESHOLD);
+    }
+
+    /**
+     * @param threshold How many times an expression runs before it is compiled.
+     */
+    JitEngine(int threshold){
+        this.threshold = threshold;
+    }
+
+    @Override
+    public Program prepare(Expression expression){
+        return new Tiered(expression);
+    }
+
+    /**
+     * An expression that is interpreted until it has been compiled.
+     */
+    class Tiered implements Program {
+        private final Expression expression;
+        private int runs = 0;
+        private volatile Program compiled;
+        private volatile boolean deoptimized = false;
+        volatile long queuedAt;
+        volatile long compiledAt;
+
+        Tiered(Expression expression){
+            this.expression = expression;
+        }
+
+        @Override
+        public Object run(){
+            Program compiled = this.compiled;
+            if(compiled != null){
+                try{
+                    return compiled.run();
+                } catch (JitCompiler.Deoptimize e){
+                    this.compiled = null;
+                    deoptimized = true;
+                }
+            } else if(++runs == threshold && !deoptimized){
+                enqueue(this);
+            }
+            return interpreter.evaluate(expression);
+        }
+
+        /**
+         * @return true once the compiled class is being run.
+         */
+        boolean isCompiled(){
+            return compiled != null;
+        }
+    }
+
+    @Override
+    public synchronized void close(){
+        closed = true;
+        if(thread != null){
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    private synchronized void enqueue(Tiered program){
+        if(closed || !compiler.available()){
+            return;
+        }
+        program.queuedAt = System.nanoTime();
+        queue.add(program);
+        if(thread == null){
+            thread = new Thread(this::compileQueued, "jit");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    private void compileQueued(){
+        List<Tiered> batch = new ArrayList<>();
+        List<Expression> expressions = new ArrayList<>();
+        //Checked as well as interrupts, in case compiling a batch swallowed one.
+        while(!closed){
+            try{
+                batch.add(queue.take());
+            } catch (InterruptedException e){
+                return;
+            }
+            queue.drainTo(batch, BATCH - 1);
+            for(Tiered program: batch){
+                expressions.add(program.expression);
+            }
+
+            List<Program> compiled;
+            try{
+                compiled = compiler.compile(expressions);
+            } catch (Throwable e){
+                //The thread is only ever started once, so it has to outlive anything that goes wrong with a batch.
+                compiled = null;
+            }
+            for(int i = 0; i < batch.size(); i++){
+                //One that failed to compile stays interpreted.
+                batch.get(i).compiledAt = System.nanoTime();
+                batch.get(i).compiled = compiled == null ? null : compiled.get(i);
+            }
+            batch.clear();
+            expressions.clear();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package Interpreter;
+
+/**
+ * The keywords of one locale, in a collision-free hash table built ahead of time by
+ * YakShave.GenerateKeywordTables. A lookup hashes the identifier straight out of the source code,
+ * probes exactly one slot, and compares characters, so no String is made for the identifier.
+ */
+class KeywordTable {
+
+    private final String locale;
+    private final int seed;
+    private final int mask;
+    private final char[][] words;
+    private final Lexer.TokenType[] types;
+
+    /**
+     * @param locale The locale the keywords are in, e.g. "en_US".
+     * @param seed The seed that makes the hash collision-free for these words.
+     * @param words The keyword in each slot, or null for an empty slot. The length must be a power of two.
+     * @param types The token type of the keyword in each slot.
+     */
+    KeywordTable(String locale, int seed, char[][] words, Lexer.TokenType[] types){
+        this.locale = locale;
+        this.seed = seed;
+        this.mask = words.length - 1;
+        this.words = words;
+        this.types = types;
+    }
+
+    /**
+     * Finds the token type of an identifier.
+     * @param code The source code.
+     * @param start The index of the identifier's first character.
+     * @param end The index after its last character.
+     * @return The keyword's token type, or IDENTIFIER if it is not a keyword.
+     */
+    Lexer.TokenType lookup(CharSequence code, int start, int end){
+        int slot = hash(seed, code, start, end) & mask;
+        char[] word = words[slot];
+        if(word == null || word.length != end - start){
+            return Lexer.TokenType.IDENTIFIER;
+        }
+        for(int i = 0; i < word.length; i++){
+            if(word[i] != code.charAt(start + i)){
+                return Lexer.TokenType.IDENTIFIER;
+            }
+        }
+        return types[slot];
+    }
+
+    /**
+     * The hash the tables are built with. YakShave.GenerateKeywordTables has a copy of it, and the two must match.
+     */
+    static int hash(int seed, CharSequence text, int start, int end){
+        int h = seed;
+        for(int i = start; i < end; i++){
+            h = h * 31 + text.charAt(i);
+        }
+        return h ^ (h >>> 15);
+    }
+
+    public String toString(){
+        return "keywords_" + locale;
+    }
+}
@@ -0,0 +1,299 @@
+package Interpreter;
+
+import java.util.Locale;
+
+/**
+ * A perfect hash KeywordTable for each keywords_*.properties file, each built the first time it is asked for.
+ * Generated by YakShave.GenerateKeywordTables, do not edit by hand.
+ */
+final class KeywordTables {
+
+    private static final class DE_DE {
+        static final KeywordTable TABLE = new KeywordTable("de_DE", 56,
+                new char[][]{
+                        "this".toCharArray(),
+                        "nicht".toCharArray(),
+                        null,
+                        null,
+                        null,
+                        "und".toCharArray(),
+                        null,
+                        null,
+                        null,
+                        null,
+                        "ob".toCharArray(),
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        "var".toCharArray(),
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        "function".toCharArray(),
+                        null,
+                        null,
+                        null,
+                        "while".toCharArray(),
+                        null,
+                        null,
+                        null,
+                        "for".toCharArray(),
+                        "oder".toCharArray(),
+                        null,
+                        "class".toCharArray(),
+                        "print".toCharArray(),
+                        null,
+                        null,
+                        null,
+                        "nil".toCharArray(),
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        "falsch".toCharArray(),
+                        "super".toCharArray(),
+                        null,
+                        "else".toCharArray(),
+                        null,
+                        null,
+                        null,
+                        null,
+                        "trau".toCharArray(),
+                        "return".toCharArray(),
+                        null,
+                },
+                new Lexer.TokenType[]{
+                        Lexer.TokenType.THIS,
+                        Lexer.TokenType.BANG,
+                        null,
+                        null,
+                        null,
+                        Lexer.TokenType.AND,
+                        null,
+                        null,
+                        null,
+                        null,
+                        Lexer.TokenType.IF,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        Lexer.TokenType.VAR,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        Lexer.TokenType.FUNCTION,
+                        null,
+                        null,
+                        null,
+                        Lexer.TokenType.WHILE,
+                        null,
+                        null,
+                        null,
+                        Lexer.TokenType.FOR,
+                        Lexer.TokenType.OR,
+                        null,
+                        Lexer.TokenType.CLASS,
+                        Lexer.TokenType.PRINT,
+                        null,
+                        null,
+                        null,
+                        Lexer.TokenType.NIL,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        Lexer.TokenType.FALSE,
+                        Lexer.TokenType.SUPER,
+                        null,
+                        Lexer.TokenType.ELSE,
+                        null,
+                        null,
+                        null,
+                        null,
+                        Lexer.TokenType.TRUE,
+                        Lexer.TokenType.RETURN,
+                        null,
+                });
+    }
+
+    private static final class EN_US {
+        static final KeywordTable TABLE = new KeywordTable("en_US", 2,
+                new char[][]{
+                        null,
+                        null,
+                        null,
+                        "for".toCharArray(),
+                        "this".toCharArray(),
+                        null,
+                        null,
+                        "return".toCharArray(),
+                        "false".toCharArray(),
+                        null,
+                        "nil".toCharArray(),
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        "and".toCharArray(),
+                        null,
+                        "super".toCharArray(),
+                        "not".toCharArray(),
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        "if".toCharArray(),
+                        "var".toCharArray(),
+                        "while".toCharArray(),
+                        null,
+                        null,
+                        null,
+                        "or".toCharArray(),
+                        null,
+                        null,
+                        "class".toCharArray(),
+                        null,
+                        "function".toCharArray(),
+                        null,
+                        "else".toCharArray(),
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        "true".toCharArray(),
+                        null,
+                        null,
+                        null,
+                        "print".toCharArray(),
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                },
+                new Lexer.TokenType[]{
+                        null,
+                        null,
+                        null,
+                        Lexer.TokenType.FOR,
+                        Lexer.TokenType.THIS,
+                        null,
+                        null,
+                        Lexer.TokenType.RETURN,
+                        Lexer.TokenType.FALSE,
+                        null,
+                        Lexer.TokenType.NIL,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        Lexer.TokenType.AND,
+                        null,
+                        Lexer.TokenType.SUPER,
+                        Lexer.TokenType.BANG,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        Lexer.TokenType.IF,
+                        Lexer.TokenType.VAR,
+                        Lexer.TokenType.WHILE,
+                        null,
+                        null,
+                        null,
+                        Lexer.TokenType.OR,
+                        null,
+                        null,
+                        Lexer.TokenType.CLASS,
+                        null,
+                        Lexer.TokenType.FUNCTION,
+                        null,
+                        Lexer.TokenType.ELSE,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        Lexer.TokenType.TRUE,
+                        null,
+                        null,
+                        null,
+                        Lexer.TokenType.PRINT,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                });
+    }
+
+    /**
+     * Picks the table for a locale, falling back to one with the same language, then to en_US.
+     * @param locale The locale of the source code.
+     * @return The keywords of that locale.
+     */
+    static KeywordTable forLocale(Locale locale){
+        switch(locale.toString()){
+            case "de_DE": return DE_DE.TABLE;
+            case "en_US": return EN_US.TABLE;
+        }
+        switch(locale.getLanguage()){
+            case "de": return DE_DE.TABLE;
+            case "en": return EN_US.TABLE;
+        }
+        return EN_US.TABLE;
+    }
+}
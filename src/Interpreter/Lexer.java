@@ -2,9 +2,7 @@ package Interpreter;
 
 import java.util.*;
 
-public class Lexer {
-
-    private static ResourceBundle em = ResourceBundle.getBundle("Interpreter.keywords", Main.locale);
+public class Lexer implements TokenStream {
 
     /**
      * A list of all token-types in the languge.
@@ -40,36 +38,14 @@ public class Lexer {
 
     }
 
-    private static final Map<String, TokenType> keywords;
+    private final SourceFile source;
+    private final CharSequence code;
+    private final KeywordTable keywords;
 
-    /**
-     * Puts all the keywords and their token types into a Hash Map.
-     */
-    static {
-        keywords = new HashMap<>();
-        keywords.put(em.getString("and"), TokenType.AND);
-        keywords.put(em.getString("or"), TokenType.OR);
-        keywords.put(em.getString("not"), TokenType.BANG);
-        keywords.put(em.getString("class"),TokenType.CLASS);
-        keywords.put(em.getString("if"),TokenType.IF);
-        keywords.put(em.getString("else"),TokenType.ELSE);
-        keywords.put(em.getString("true"), TokenType.TRUE);
-        keywords.put(em.getString("false"),TokenType.FALSE);
-        keywords.put(em.getString("nil"), TokenType.NIL);
-        keywords.put(em.getString("function"),TokenType.FUNCTION);
-        keywords.put(em.getString("return"), TokenType.RETURN);
-        keywords.put(em.getString("while"), TokenType.WHILE);
-        keywords.put(em.getString("for"), TokenType.FOR);
-        keywords.put(em.getString("print"), TokenType.PRINT);
-        keywords.put(em.getString("super"),TokenType.SUPER);
-        keywords.put(em.getString("this"), TokenType.THIS);
-        keywords.put(em.getString("var"),TokenType.VAR);
-    }
+    private Token lexed; //The token produced by the last call to lexToken, if any.
+    private TokenBuffer buffer; //Where tokens go instead, when lexing into a TokenBuffer.
 
-    private final String code;
-    private final List<Token> tokens = new ArrayList<>();
-
-    private final String[] lines; //each line, for debug purposes.
+    private int tokens = 0;     //How many tokens have been produced, for Phase.
 
     private int start = 0;
     private int current = 0;
@@ -80,28 +56,133 @@ public class Lexer {
      * A Lexer constructed with an unchangable code sequence, which it consumes.
      * Produces a series of Lexed tokens, with types identified.
      * Adds to the CompileError error list as encountered.
-     * @param code The source code file.
+     * @param code The source code file, either a String or a view over the loaded file.
+     */
+    public Lexer(CharSequence code){
+        this(code, KeywordTables.forLocale(CompilationContext.current().locale));
+    }
+
+    /**
+     * A Lexer for source code written with the keywords of a particular locale.
+     * @param code The source code file, either a String or a view over the loaded file.
+     * @param keywords The keywords to recognize, see KeywordTables.
      */
-    public Lexer(String code){
-        this.code = code;
-        lines = code.split("\n");
+    Lexer(CharSequence code, KeywordTable keywords){
+        this(new SourceFile(code), keywords);
+    }
+
+    /**
+     * A Lexer over a SourceFile, which the tokens and errors it produces point back into.
+     * @param source The source code file.
+     * @param keywords The keywords to recognize, see KeywordTables.
+     */
+    Lexer(SourceFile source, KeywordTable keywords){
+        this.source = source;
+        this.code = source.text();
+        this.keywords = keywords;
+    }
+
+    /**
+     * A Lexer that starts partway through the code, for re-lexing after an edit.
+     * The offset must be somewhere the Lexer would be between tokens, outside any string or comment.
+     * @param source The source code file.
+     * @param keywords The keywords to recognize, see KeywordTables.
+     * @param offset The index to start lexing at.
+     * @param line The line the offset is on.
+     * @param pos The character position of the offset within its line.
+     */
+    Lexer(SourceFile source, KeywordTable keywords, int offset, int line, int pos){
+        this(source, keywords);
+        this.current = offset;
+        this.line = line;
+        this.pos = pos;
     }
 
     /**
      * Loops through all tokens in the source code, scanning and lexing each one, adding them to a list.
+     * For tooling that needs every token at once; the Parser can pull them one at a time instead.
      * @return A List of all parsed tokens.
      */
     List<Token> lexTokens(){
-        while(isMore()){
+        List<Token> tokens = new ArrayList<>();
+        Token token;
+        do {
+            token = nextToken();
+            tokens.add(token);
+        } while(token.type != TokenType.EOF);
+
+        return tokens;
+    }
+
+    /**
+     * Lexes the whole source code into a TokenBuffer, without creating a Token object for each token.
+     * @return The buffer, ending with an EOF token.
+     */
+    TokenBuffer lexBuffer(){
+        TokenBuffer lexed = new TokenBuffer(source);
+        while(lexInto(lexed)){
+            //Keep going until the code is used up.
+        }
+        lexed.add(TokenType.EOF, current, 0, line, 0, null);
+        return lexed;
+    }
+
+    /**
+     * Scans just far enough to add one more token to a TokenBuffer. Does not add the EOF token.
+     * @param into The buffer to add to.
+     * @return false if the code ran out before another token was found.
+     */
+    boolean lexInto(TokenBuffer into){
+        int size = into.size();
+        buffer = into;
+        while(isMore() && into.size() == size){
             start = current;
             lexToken();
         }
+        buffer = null;
+        return into.size() > size;
+    }
 
-        tokens.add(new Token(TokenType.EOF, "", null, line, 0, lines[line - 1]));
-
+    /**
+     * @return How many tokens the Lexer has produced, not counting EOF.
+     */
+    int tokens(){
         return tokens;
     }
 
+    /**
+     * @return The line the Lexer has reached.
+     */
+    int line(){
+        return line;
+    }
+
+    /**
+     * @return The character position within the line the Lexer has reached.
+     */
+    int pos(){
+        return pos;
+    }
+
+    /**
+     * Scans just far enough to produce one more token, skipping whitespace and comments.
+     * @return The next token, or an EOF token once the source is used up.
+     */
+    @Override
+    public Token nextToken(){
+        while(isMore()){
+            start = current;
+            lexToken();
+            if(lexed != null){
+                Token token = lexed;
+                lexed = null;
+                return token;
+            }
+        }
+
+        return new Token(TokenType.EOF, "", null, line, 0, source, current);
+    }
+
     /**
      * Checks if there are characters left in the source code.
      * @return true if there are more characters, false otherwise.
@@ -112,102 +193,72 @@ public class Lexer {
 
     /**
      * Lexes a single token, a keyword, symbol, identifier, or illegal symbol.
+     * Characters are classified with LexerTables, and operators are matched by its DFA.
      */
     private void lexToken() {
         char c = advance();
-        switch(c){
-            case '?': addToken(TokenType.QUESTION); break;
-            case ':': addToken(TokenType.COLON); break;
-            case '(': addToken(TokenType.LEFT_PAREN); break;
-            case ')': addToken(TokenType.RIGHT_PAREN); break;
-            case '{': addToken(TokenType.LEFT_BRACE); break;
-            case '}': addToken(TokenType.RIGHT_BRACE); break;
-            case ',': addToken(TokenType.COMMA); break;
-            case '|':
-                if(match('|')){
-                    addToken(TokenType.OR);
-                } else if(match('&')) {
-                    addToken(TokenType.B_XOR);
-                }
-                else {
-                    addToken(TokenType.B_OR);
-                }
-                break;
-            case '&':
-                if(match('&')){
-                    addToken(TokenType.AND);
-                } else {
-                    addToken(TokenType.B_AND);
-                }
-                break;
-            case '.':
-                if(isDigit(peek())){
-                    //advance();
-                    number();
-                } else {
-                    addToken(TokenType.DOT);
-                }
-                break;
-            case '+': addToken(TokenType.PLUS); break;
-            case '-': addToken(TokenType.MINUS); break;
-            case '*':
-                if (match('*')){
-                    addToken(TokenType.STAR_STAR);
-                }
-                else {
-                    addToken(TokenType.STAR);
-                } break;
-            case ';': addToken(TokenType.SEMICOLON); break;
-            case '~':
-                if(match('&')) {
-                    addToken(TokenType.B_NAND);
-                } else {
-                    addToken(TokenType.B_NOT);
-                }
-                break;
-            case '!': addToken(match('=') ? TokenType.BANG_EQUAL : TokenType.BANG); break;
-            case '=':addToken(match('=') ? TokenType.EQUAL_EQUAL : TokenType.EQUAL); break;
-            case '<': //addToken(match('=') ? TokenType.LESS_EQUAL : TokenType.LESS);
-                if(match('=')){
-                    addToken(TokenType.LESS_EQUAL);
-                } else if(match('<')){
-                    addToken(TokenType.LEFT_SHIFT);
-                } else {
-                    addToken(TokenType.LESS);
-                }
+        int flags = flags(c);
+
+        if((flags & LexerTables.OPERATOR) != 0){
+            if(c == '.' && isDigit(peek())){
+                number();
+            } else {
+                operator(c);
+            }
+        } else if((flags & LexerTables.SPACE) != 0){
+            //Skip whitespace.
+        } else if((flags & LexerTables.DIGIT) != 0){
+            number();
+        } else if((flags & LexerTables.ALPHA) != 0){
+            identifier();
+        } else if(c == '\n'){
+            line++;   //Advance the line, and reset the character position to 0.
+            pos = 0;
+        } else if(c == '"'){
+            string();
+        } else {
+            Object[] details = {c + "", new SourceFile.Line(source, line)};
+            CompileError.enqueue(CompileError.Error.UnexpectedCharacter, line, pos, details, false);
+        }
+    }
+
+    /**
+     * Runs the operator DFA from the character already consumed, and takes the longest operator
+     * (or comment opener) that matches.
+     * @param first The first character of the operator.
+     */
+    private void operator(char first){
+        int state = LexerTables.TRANSITIONS[LexerTables.START * LexerTables.COLUMNS + column(first)];
+        int accepted = state;
+        int acceptedEnd = current;
+
+        int end = current;
+        while(end < code.length()){
+            state = LexerTables.TRANSITIONS[state * LexerTables.COLUMNS + column(code.charAt(end))];
+            if(state == 0){
                 break;
-            case '>': //addToken(match('=') ? TokenType.GREATER_EQUAL : TokenType.GREATER);
-                if(match('=')){
-                    addToken(TokenType.GREATER_EQUAL);
-                } else if(match('>')){
-                    addToken(TokenType.RIGHT_SHIFT);
-                } else {
-                    addToken(TokenType.GREATER);
-                }
+            }
+            end++;
+            if(LexerTables.ACTIONS[state] != LexerTables.ACTION_NONE){
+                accepted = state;
+                acceptedEnd = end;
+            }
+        }
+
+        pos += acceptedEnd - current;
+        current = acceptedEnd;
+
+        switch(LexerTables.ACTIONS[accepted]){
+            case LexerTables.ACTION_TOKEN:
+                addToken(LexerTables.TOKENS[accepted]);
                 break;
-            case '"': string(); break;
-            case '/':
-                if(match('/')){
-                    while(peek() != '\n' && isMore()){
-                        advance();
-                    }
-                } else if(match('*')){
-                    blockComment();
-                } else {
-                    addToken(TokenType.SLASH);
+            case LexerTables.ACTION_LINE_COMMENT:
+                while(peek() != '\n' && isMore()){
+                    advance();
                 }
                 break;
-            case '\n': line++; pos = 0; break;  //Advance the line, and reset the character position to 0.
-            case ' ': case '\r': case '\t': break;
-            default:
-                if(isDigit(c)) {
-                    number();
-                } else if(isAlpha(c)){
-                    identifier();
-                } else {
-                    String[] details = {c + "", lines[line - 1]};
-                    CompileError.enqueue(CompileError.Error.UnexpectedCharacter, line, pos, details, false);
-                }
+            case LexerTables.ACTION_BLOCK_COMMENT:
+                blockComment();
                 break;
         }
     }
@@ -219,7 +270,6 @@ public class Lexer {
     private char advance(){
         current++;
         pos++;
-        char thisChar = code.charAt(current - 1);
         return code.charAt(current - 1);
     }
 
@@ -243,30 +293,13 @@ public class Lexer {
         return peek(0);
     }
 
-    /**
-     * Checks if the current character is equal to a provided character.
-     * @param expected Character to check against.
-     * @return false if no EOF, false if the character is not correct. true if neither, and advances the current character.
-     */
-    private boolean match(char expected){
-        if(!isMore()){
-            return false;
-        }
-        if(code.charAt(current) != expected){
-            return false;
-        }
-
-        current++;
-        return true;
-    }
-
     /**
      * Checks if a character is a digit 0 through 9.
      * @param c The character to check.
      * @return c >= '0' && c <= '9'
      */
     private boolean isDigit(char c){
-        return c >= '0' && c <= '9';
+        return (flags(c) & LexerTables.DIGIT) != 0;
     }
 
     /**
@@ -275,7 +308,7 @@ public class Lexer {
      * @return Matches regex [A-Za-z_]
      */
     private boolean isAlpha(char c){
-        return (c + "").matches("[A-Za-z_]");
+        return (flags(c) & LexerTables.ALPHA) != 0;
     }
 
     /**
@@ -284,11 +317,39 @@ public class Lexer {
      * @return isDigit(c) || isAlpha(c)
      */
     private boolean isAlphaNumeric(char c){
-        return isDigit(c) || isAlpha(c);
+        return (flags(c) & (LexerTables.ALPHA | LexerTables.DIGIT)) != 0;
+    }
+
+    /**
+     * Looks up a character's class in LexerTables.
+     * @param c The character to look up.
+     * @return The class flags, or 0 for characters outside ASCII.
+     */
+    private static int flags(char c){
+        return c < 128 ? LexerTables.CHARACTER_FLAGS[c] : 0;
     }
 
     /**
-     * Adds a token to the list, with only a given type.
+     * Looks up a character's column in the operator DFA.
+     * @param c The character to look up.
+     * @return The column, or 0 if the character is not part of any operator.
+     */
+    private static int column(char c){
+        return c < 128 ? LexerTables.COLUMN[c] : 0;
+    }
+
+    /**
+     * Copies a range of the source code out into a String.
+     * @param from The index of the first character.
+     * @param to The index after the last character.
+     * @return The characters in the range.
+     */
+    private String text(int from, int to){
+        return code.subSequence(from, to).toString();
+    }
+
+    /**
+     * Produces a token with only a given type.
      * Puts null in the literal slot.
      * @param type The type of the token.
      */
@@ -297,14 +358,19 @@ public class Lexer {
     }
 
     /**
-     * Adds a token to the list, given a type, and an object that contains any literal information.
+     * Produces a token, given a type, and an object that contains any literal information.
      *
      * @param type The type of the token.
      * @param literal Any specific information about a user-defined value or identifier, etc.
      */
     private void addToken(TokenType type, Object literal){
-        String text = code.substring(start, current);
-        tokens.add(new Token(type, text, literal, line, pos, lines[line]));
+        tokens++;
+        if(buffer != null){
+            buffer.add(type, start, current - start, line, pos, literal);
+            return;
+        }
+        String text = text(start, current);
+        lexed = new Token(type, text, literal, line, pos, source, start);
     }
 
     /**
@@ -316,26 +382,35 @@ public class Lexer {
         int startLine = line;
         int startPos = pos;
 
-        String[] details = {lines[startLine - 1], ""};//TODO: Add details about openings and closings.
+        //The lines of the comment openers and closers, only turned into text if the comment is never closed.
+        List<Integer> markers = new ArrayList<>();
 
         boolean continueFlag = !(peek(-2) == '*' && peek(-1) == '/') && isMore();
         int level = 1;
         while(continueFlag && isMore()){
-            advance();
+            if(advance() == '\n'){
+                line++;
+                pos = 0;
+            }
             //System.err.println(peek(-2) + "" + peek(-1));
             if((peek(-2) == '*' && peek(-1) == '/')){
                 level--;
-                details[1] += "\t" + lines[line - 1] + "\n";
+                markers.add(line);
             }
             if ((peek(-2) == '/' && peek(-1) == '*')) {
                 level++;
-                details[1] += "\t" + lines[line - 1] + "\n";
+                markers.add(line);
             }
             //System.err.println("Level: " + level);
             continueFlag = level > 0;
         }
 
-        if(!isMore()){
+        if(level > 0){
+            int[] lines = new int[markers.size()];
+            for(int i = 0; i < lines.length; i++){
+                lines[i] = markers.get(i);
+            }
+            Object[] details = {new SourceFile.Line(source, startLine), new SourceFile.Lines(source, lines)};
             CompileError.enqueue(CompileError.Error.UnterminatedComment, startLine, startPos, details, false);
         }
     }
@@ -349,22 +424,21 @@ public class Lexer {
         int startLine = line;
         int startPos = pos;
         while(peek() != '"' && isMore()){
-            if(peek() == '\n'){
+            if(advance() == '\n'){
                 line++;
                 pos = 0;
             }
-            advance();
         }
 
         if(!isMore()){
-            String[] details = {lines[startLine - 1]};
+            Object[] details = {new SourceFile.Line(source, startLine)};
             CompileError.enqueue(CompileError.Error.UnterminatedString, startLine, startPos, details, false);
             return;
         }
 
         advance();
 
-        String value = code.substring(start + 1, current -1);
+        String value = text(start + 1, current -1);
         value = StringUtils.unescape(value);
         addToken(TokenType.STRING, value);
     }
@@ -385,13 +459,13 @@ public class Lexer {
                 advance();
             }
 
-            addToken(TokenType.NUMBER, Double.parseDouble(code.substring(start, current))); //TODO: parse
+            addToken(TokenType.NUMBER, Double.parseDouble(text(start, current))); //TODO: parse
         } else {
             try{
-                //addToken(TokenType.NUMBER, Integer.parseInt(code.substring(start, current))); //TODO: parse
-                addToken(TokenType.NUMBER, Double.parseDouble(code.substring(start, current))); //TODO: parse
+                //addToken(TokenType.NUMBER, Integer.parseInt(text(start, current))); //TODO: parse
+                addToken(TokenType.NUMBER, Double.parseDouble(text(start, current))); //TODO: parse
             } catch (NumberFormatException e){
-                addToken(TokenType.NUMBER, Double.parseDouble(code.substring(start, current))); //TODO: parse
+                addToken(TokenType.NUMBER, Double.parseDouble(text(start, current))); //TODO: parse
             }
 
         }
@@ -406,12 +480,10 @@ public class Lexer {
             advance();
         }
 
-        String text = code.substring(start, current);
-
-        TokenType type = keywords.get(text);
-        if(type == null){
-            type = TokenType.IDENTIFIER;
-            addToken(type, text);
+        TokenType type = keywords.lookup(code, start, current);
+        if(type == TokenType.IDENTIFIER){
+            //A TokenBuffer slices the name out again when it is needed, so it only has to be copied for a Token.
+            addToken(type, buffer == null ? text(start, current) : null);
         } else {
             addToken(type);
         }
@@ -0,0 +1,306 @@
+package Interpreter;
+
+/**
+ * Character classes and the operator DFA used by the Lexer.
+ * Generated by YakShave.GenerateLexerTables, do not edit by hand.
+ */
+final class LexerTables {
+
+    static final byte ALPHA = 1;
+    static final byte DIGIT = 2;
+    static final byte SPACE = 4;
+    static final byte OPERATOR = 8;
+
+    static final byte ACTION_NONE = 0;
+    static final byte ACTION_TOKEN = 1;
+    static final byte ACTION_LINE_COMMENT = 2;
+    static final byte ACTION_BLOCK_COMMENT = 3;
+
+    static final int START = 1;
+    static final int COLUMNS = 21;
+
+    /**
+     * Flags for each ASCII character. Anything above 127 has no flags.
+     */
+    static final byte[] CHARACTER_FLAGS = {
+            0, //0x0
+            0, //0x1
+            0, //0x2
+            0, //0x3
+            0, //0x4
+            0, //0x5
+            0, //0x6
+            0, //0x7
+            0, //0x8
+            SPACE, //0x9
+            0, //0xa
+            0, //0xb
+            0, //0xc
+            SPACE, //0xd
+            0, //0xe
+            0, //0xf
+            0, //0x10
+            0, //0x11
+            0, //0x12
+            0, //0x13
+            0, //0x14
+            0, //0x15
+            0, //0x16
+            0, //0x17
+            0, //0x18
+            0, //0x19
+            0, //0x1a
+            0, //0x1b
+            0, //0x1c
+            0, //0x1d
+            0, //0x1e
+            0, //0x1f
+            SPACE, //space
+            OPERATOR, //!
+            0, //"
+            0, //#
+            0, //$
+            0, //%
+            OPERATOR, //&
+            0, //'
+            OPERATOR, //(
+            OPERATOR, //)
+            OPERATOR, //*
+            OPERATOR, //+
+            OPERATOR, //,
+            OPERATOR, //-
+            OPERATOR, //.
+            OPERATOR, ///
+            DIGIT, //0
+            DIGIT, //1
+            DIGIT, //2
+            DIGIT, //3
+            DIGIT, //4
+            DIGIT, //5
+            DIGIT, //6
+            DIGIT, //7
+            DIGIT, //8
+            DIGIT, //9
+            OPERATOR, //:
+            OPERATOR, //;
+            OPERATOR, //<
+            OPERATOR, //=
+            OPERATOR, //>
+            OPERATOR, //?
+            0, //@
+            ALPHA, //A
+            ALPHA, //B
+            ALPHA, //C
+            ALPHA, //D
+            ALPHA, //E
+            ALPHA, //F
+            ALPHA, //G
+            ALPHA, //H
+            ALPHA, //I
+            ALPHA, //J
+            ALPHA, //K
+            ALPHA, //L
+            ALPHA, //M
+            ALPHA, //N
+            ALPHA, //O
+            ALPHA, //P
+            ALPHA, //Q
+            ALPHA, //R
+            ALPHA, //S
+            ALPHA, //T
+            ALPHA, //U
+            ALPHA, //V
+            ALPHA, //W
+            ALPHA, //X
+            ALPHA, //Y
+            ALPHA, //Z
+            0, //[
+            0, //\
+            0, //]
+            0, //^
+            ALPHA, //_
+            0, //`
+            ALPHA, //a
+            ALPHA, //b
+            ALPHA, //c
+            ALPHA, //d
+            ALPHA, //e
+            ALPHA, //f
+            ALPHA, //g
+            ALPHA, //h
+            ALPHA, //i
+            ALPHA, //j
+            ALPHA, //k
+            ALPHA, //l
+            ALPHA, //m
+            ALPHA, //n
+            ALPHA, //o
+            ALPHA, //p
+            ALPHA, //q
+            ALPHA, //r
+            ALPHA, //s
+            ALPHA, //t
+            ALPHA, //u
+            ALPHA, //v
+            ALPHA, //w
+            ALPHA, //x
+            ALPHA, //y
+            ALPHA, //z
+            OPERATOR, //{
+            OPERATOR, //|
+            OPERATOR, //}
+            OPERATOR, //~
+            0, //0x7f
+    };
+
+    /**
+     * The DFA column for each ASCII character, 0 if no operator contains it.
+     */
+    static final byte[] COLUMN = new byte[128];
+
+    static {
+        COLUMN['('] = 1;
+        COLUMN[')'] = 2;
+        COLUMN['{'] = 3;
+        COLUMN['}'] = 4;
+        COLUMN[','] = 5;
+        COLUMN['.'] = 6;
+        COLUMN['-'] = 7;
+        COLUMN['+'] = 8;
+        COLUMN[';'] = 9;
+        COLUMN['/'] = 10;
+        COLUMN['*'] = 11;
+        COLUMN['<'] = 12;
+        COLUMN['>'] = 13;
+        COLUMN['?'] = 14;
+        COLUMN[':'] = 15;
+        COLUMN['!'] = 16;
+        COLUMN['='] = 17;
+        COLUMN['|'] = 18;
+        COLUMN['&'] = 19;
+        COLUMN['~'] = 20;
+    }
+
+    /**
+     * Next state, indexed by state * COLUMNS + column. State 0 is dead.
+     */
+    static final byte[] TRANSITIONS = {
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, //0
+            0, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 14, 16, 18, 19, 20, 22, 26, 28, 31, //1
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, //2
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, //3
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, //4
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, //5
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, //6
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, //7
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, //8
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, //9
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, //10
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 33, 34, 0, 0, 0, 0, 0, 0, 0, 0, 0, //11
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 13, 0, 0, 0, 0, 0, 0, 0, 0, 0, //12
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, //13
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 15, 0, 0, 0, 0, 25, 0, 0, 0, //14
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, //15
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 17, 0, 0, 0, 24, 0, 0, 0, //16
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, //17
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, //18
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, //19
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 21, 0, 0, 0, //20
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, //21
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 23, 0, 0, 0, //22
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, //23
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, //24
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, //25
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 27, 30, 0, //26
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, //27
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 29, 0, //28
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, //29
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, //30
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 32, 0, //31
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, //32
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, //33
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, //34
+    };
+
+    /**
+     * What to do when the longest match ends in each state.
+     */
+    static final byte[] ACTIONS = {
+            ACTION_NONE,
+            ACTION_NONE,
+            ACTION_TOKEN,
+            ACTION_TOKEN,
+            ACTION_TOKEN,
+            ACTION_TOKEN,
+            ACTION_TOKEN,
+            ACTION_TOKEN,
+            ACTION_TOKEN,
+            ACTION_TOKEN,
+            ACTION_TOKEN,
+            ACTION_TOKEN,
+            ACTION_TOKEN,
+            ACTION_TOKEN,
+            ACTION_TOKEN,
+            ACTION_TOKEN,
+            ACTION_TOKEN,
+            ACTION_TOKEN,
+            ACTION_TOKEN,
+            ACTION_TOKEN,
+            ACTION_TOKEN,
+            ACTION_TOKEN,
+            ACTION_TOKEN,
+            ACTION_TOKEN,
+            ACTION_TOKEN,
+            ACTION_TOKEN,
+            ACTION_TOKEN,
+            ACTION_TOKEN,
+            ACTION_TOKEN,
+            ACTION_TOKEN,
+            ACTION_TOKEN,
+            ACTION_TOKEN,
+            ACTION_TOKEN,
+            ACTION_LINE_COMMENT,
+            ACTION_BLOCK_COMMENT,
+    };
+
+    /**
+     * The token type produced when the longest match ends in each state, if any.
+     */
+    static final Lexer.TokenType[] TOKENS = {
+            null,
+            null,
+            Lexer.TokenType.LEFT_PAREN,
+            Lexer.TokenType.RIGHT_PAREN,
+            Lexer.TokenType.LEFT_BRACE,
+            Lexer.TokenType.RIGHT_BRACE,
+            Lexer.TokenType.COMMA,
+            Lexer.TokenType.DOT,
+            Lexer.TokenType.MINUS,
+            Lexer.TokenType.PLUS,
+            Lexer.TokenType.SEMICOLON,
+            Lexer.TokenType.SLASH,
+            Lexer.TokenType.STAR,
+            Lexer.TokenType.STAR_STAR,
+            Lexer.TokenType.LESS,
+            Lexer.TokenType.LEFT_SHIFT,
+            Lexer.TokenType.GREATER,
+            Lexer.TokenType.RIGHT_SHIFT,
+            Lexer.TokenType.QUESTION,
+            Lexer.TokenType.COLON,
+            Lexer.TokenType.BANG,
+            Lexer.TokenType.BANG_EQUAL,
+            Lexer.TokenType.EQUAL,
+            Lexer.TokenType.EQUAL_EQUAL,
+            Lexer.TokenType.GREATER_EQUAL,
+            Lexer.TokenType.LESS_EQUAL,
+            Lexer.TokenType.B_OR,
+            Lexer.TokenType.OR,
+            Lexer.TokenType.B_AND,
+            Lexer.TokenType.AND,
+            Lexer.TokenType.B_XOR,
+            Lexer.TokenType.B_NOT,
+            Lexer.TokenType.B_NAND,
+            null,
+            null,
+    };
+}
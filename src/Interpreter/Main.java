@@ -1,29 +1,32 @@
 package Interpreter;
 
-import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.*;
 
 public class Main {
 
-    public static Locale locale = new Locale("en","US");
-    private static ResourceBundle mess = PropertyResourceBundle.getBundle("Interpreter.compilerUI", locale);
-
     /**
-     * Main method, called from the command line with a
+     * Main method, called from the command line with a file name and flags, or with -b and a directory or a
+     * file listing files, to compile many files at once (see BatchCompiler), or with -d and a socket path, to
+     * compile files sent by CompileClient (see CompileDaemon), or with -t for a training run (see TrainingRun).
      * @param args
      */
     public static void main(String[] args){
 
         String fileName;
         String[] rawFlags;
+        CompilationContext context = CompilationContext.current();
 
         if(args.length > 0){
             //TODO: write command line parser
             fileName = args[0];
             rawFlags = Arrays.copyOfRange(args, 1, args.length);
         } else {
-            System.out.println(mess.getString("inputPrompt"));
+            context.out.println(context.message("inputPrompt"));
 
             Scanner cmd = new Scanner(System.in);
             String inputLine = cmd.nextLine();
@@ -34,48 +37,204 @@ public class Main {
             cmd.close();
         }
 
+        if(fileName.equals("-b") && rawFlags.length > 0){
+            Flags flags = new Flags();
+            flags.parse(Arrays.copyOfRange(rawFlags, 1, rawFlags.length));
+            batch(rawFlags[0], flags);
+            return;
+        }
+        if(fileName.equals("-d") && rawFlags.length > 0){
+            CompileDaemon.serve(rawFlags[0]);
+            return;
+        }
+        if(fileName.equals("-t")){
+            try{
+                TrainingRun.run(1);
+            } catch (IOException e){
+                String directory = System.getProperty("java.io.tmpdir");
+                CompileError.enqueue(CompileError.Error.FileUnreadable, -1, -1, new String[]{directory, e.toString()}, true);
+            }
+            return;
+        }
+
         Flags flags = new Flags();
         flags.parse(rawFlags);
 
-        Phase.changePhase(mess.getString("scanning"));
+        //Independent expressions are evaluated in parallel, one thread per core unless -j says otherwise.
+        int threads = flags.isSet(Flags.flagType.Threads) ? Integer.parseInt(flags.get(Flags.flagType.Threads))
+                : Runtime.getRuntime().availableProcessors();
+        context.measurePhases = flags.isSet(Flags.flagType.Report);
+        if(context.measurePhases){
+            //Written as the process ends, so that a compilation stopped by a fatal error is reported too.
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> report(flags.get(Flags.flagType.Report),
+                    Collections.singletonList(fileName), Collections.singletonList(context.exitCode),
+                    Collections.singletonList(context.phases))));
+        }
+        compile(fileName, flags, threads);
+    }
 
-        String fileContents = "";
+    /**
+     * Compiles and runs one file, printing its results and errors to this thread's CompilationContext.
+     * @param fileName The path of the file.
+     * @param flags The compiler flags.
+     * @param threads How many of the file's expressions may be evaluated at once.
+     */
+    static void compile(String fileName, Flags flags, int threads){
+        CompilationContext context = CompilationContext.current();
+        context.fileName = fileName;
+        if(flags.isSet(Flags.flagType.ErrorLimit)){
+            context.diagnostics.setLimit(Integer.parseInt(flags.get(Flags.flagType.ErrorLimit)));
+        }
+        Phase.changePhase("read", context.message("scanning"));
+
+        CharSequence fileContents = "";
         try {
-            fileContents = readFile(fileName);
+            fileContents = readFile(context.resolve(fileName));
         } catch (FileNotFoundException e){
             CompileError.enqueue(CompileError.Error.FileNotFound, -1, -1, new String[]{fileName}, true);
+        } catch (IOException e){
+            CompileError.enqueue(CompileError.Error.FileUnreadable, -1, -1, new String[]{fileName, e.getMessage()}, true);
         }
 
-        Phase.changePhase(mess.getString("parsing"));
+        Phase.count(Phase.Item.CHARACTERS, fileContents.length());
+        Phase.changePhase("parse", context.message("parsing"));
 
-        Lexer lexer = new Lexer(fileContents);
-        List<Token> tokens = lexer.lexTokens();
+        Lexer lexer = new Lexer(fileContents, KeywordTables.forLocale(context.locale));
 
-        //for(Token t: tokens){
+        //for(Token t: lexer.lexTokens()){
         //    System.out.println(t.toString());
         //}
 
-        Parser parser = new Parser(tokens);
-        Expression expression = parser.parse();
+        //Report every syntax error in the file before stopping.
+        Parser parser = new Parser(lexer, false);
+        parser.setStackSafe(flags.isSet(Flags.flagType.StackSafe));
+        List<Expression> expressions = parser.parseAll();
+        Phase.count(Phase.Item.TOKENS, lexer.tokens());
+        Phase.count(Phase.Item.EXPRESSIONS, expressions.size());
+        if(Phase.measuring()){
+            Phase.count(Phase.Item.NODES, Optimizer.count(expressions));
+        }
+        if(parser.errors() > 0){
+            CompileError.dumpAndExit();
+        }
+
+        if(flags.isSet(Flags.flagType.Optimize)){
+            Phase.changePhase("optimize", context.message("optimizing"));
+            Optimizer optimizer = new Optimizer();
+            expressions = optimizer.optimize(expressions);
+            if(Phase.measuring()){
+                Phase.count(Phase.Item.NODES, Optimizer.count(expressions));
+            }
+            for(Optimizer.Report report: optimizer.reports()){
+                context.out.println(String.format(context.message("optimizerPass"), report.pass,
+                        report.nanos / 1e6, report.nodesBefore, report.nodesAfter));
+            }
+        }
 
         //System.out.println(new AstPrinter().print(expression));
 
-        Object o = (new Interpreter()).evaluate(expression);
-        System.out.println(o.toString());
+        //-s without -p evaluates without recursing as well.
+        String engineName = flags.get(Flags.flagType.OutputType);
+        if(engineName == null && flags.isSet(Flags.flagType.StackSafe)){
+            engineName = "stack";
+        }
+        Engine engine = Engine.named(engineName);
+        if(engine == null){
+            String[] details = {flags.get(Flags.flagType.OutputType), Engine.NAMES[0], String.join(", ", Engine.NAMES)};
+            CompileError.enqueue(CompileError.Error.UnrecognizedEngine, -1, -1, details, false);
+            engine = Engine.named(null);
+        }
+        Phase.changePhase("evaluate", context.message("evaluating"));
+        Phase.count(Phase.Item.EXPRESSIONS, expressions.size());
+        try{
+            new ParallelEvaluator(engine, threads).evaluate(expressions, o -> context.out.println(o.toString()));
+        } catch (RuntimeException e){
+            //The exception still ends the process with 1, so -r reports that and the evaluation it cut short.
+            context.exitCode = 1;
+            Phase.abandon(context);
+            throw e;
+        } finally {
+            engine.close();
+        }
+        Phase.changePhase(null);
 
         CompileError.dump();
     }
 
-    public static String readFile(String fileName) throws FileNotFoundException {
-        File file = new File(fileName);
-        Scanner fileScanner = null;
-        fileScanner = new Scanner(file);
+    /**
+     * Compiles every file in a directory or list, then prints what each one printed, in order, and a summary.
+     * Ends the process with the exit code of the first file that failed, if any did.
+     * @param path A directory, or a file with one path per line.
+     * @param flags The compiler flags. -j sets how many files are compiled at once.
+     */
+    private static void batch(String path, Flags flags){
+        CompilationContext context = CompilationContext.current();
+        List<String> files;
+        try {
+            files = BatchCompiler.files(path);
+        } catch (IOException e){
+            CompileError.enqueue(CompileError.Error.FileUnreadable, -1, -1, new String[]{path, e.getMessage()}, true);
+            return;
+        }
 
-        String fileContents = "";
-        while(fileScanner.hasNextLine()){
-            fileContents += fileScanner.nextLine() + "\n";
+        int threads = flags.isSet(Flags.flagType.Threads) ? Integer.parseInt(flags.get(Flags.flagType.Threads)) : 0;
+        long begin = System.nanoTime();
+        List<BatchCompiler.Result> results = new BatchCompiler(flags, threads).compile(files);
+        double seconds = (System.nanoTime() - begin) / 1e9;
+
+        if(flags.isSet(Flags.flagType.Report)){
+            List<Integer> exitCodes = new ArrayList<>();
+            List<List<Phase>> phases = new ArrayList<>();
+            for(BatchCompiler.Result result: results){
+                exitCodes.add(result.exitCode);
+                phases.add(result.phases);
+            }
+            report(flags.get(Flags.flagType.Report), files, exitCodes, phases);
         }
 
-        return fileContents;
+        int failed = 0;
+        int exitCode = 0;
+        for(BatchCompiler.Result result: results){
+            context.out.println(String.format(context.message("batchFile"), result.file));
+            context.out.print(result.output);
+            if(result.exitCode != 0){
+                failed++;
+                exitCode = exitCode == 0 ? result.exitCode : exitCode;
+            }
+        }
+        context.out.println(String.format(context.message("batchSummary"), results.size(), failed,
+                results.size() / seconds));
+        if(exitCode != 0){
+            System.exit(exitCode);
+        }
+    }
+
+    /**
+     * Writes the phases of each compilation to a JSON file, for -r. See Phase.writeReport.
+     * @param path Where to write the report.
+     * @param files The path of each file compiled.
+     * @param exitCodes What each compilation ended with.
+     * @param phases The finished phases of each compilation.
+     */
+    static void report(String path, List<String> files, List<Integer> exitCodes, List<List<Phase>> phases){
+        StringBuilder report = new StringBuilder();
+        Phase.writeReport(report, files, exitCodes, phases);
+        try {
+            Files.write(Paths.get(CompilationContext.current().resolve(path)), report.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e){
+            CompileError.enqueue(CompileError.Error.ReportUnwritable, -1, -1, new String[]{path, e.toString()}, false);
+            CompileError.dump();
+        }
+    }
+
+    /**
+     * Loads a source file through a memory map. See SourceLoader.
+     * @param fileName The path of the file to read.
+     * @return The contents of the file, which the Lexer reads directly.
+     * @throws FileNotFoundException if the file does not exist.
+     * @throws IOException if the file exists but cannot be read.
+     */
+    public static CharSequence readFile(String fileName) throws IOException {
+        return SourceLoader.load(fileName);
     }
 }
@@ -0,0 +1,109 @@
+package Interpreter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An error message from errors_*.properties, split once into its text and its placeholders so that formatting a
+ * CompileError is only appending. The placeholders are %detailN%, the Nth detail; %location%, the line and
+ * character; and %squiggle%, a line like "~~~~^" pointing at the character. Location and squiggle are left as
+ * they are for an error with no position, as are details the error does not have.
+ */
+final class MessageTemplate {
+
+    private static final int LOCATION = -1;
+    private static final int SQUIGGLE = -2;
+
+    //One set of templates per locale, parsed the first time it is used.
+    private static final Map<Locale, MessageTemplate[]> TEMPLATES = new ConcurrentHashMap<>();
+
+    private final String[] texts;       //The text before each placeholder, then the text after the last one.
+    private final int[] placeholders;   //A detail's index, LOCATION or SQUIGGLE.
+    private final String[] names;       //Each placeholder as written, for when there is nothing to put there.
+
+    private MessageTemplate(String message){
+        List<String> texts = new ArrayList<>();
+        List<Integer> placeholders = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        int start = 0;
+        int from = 0;
+        int open;
+        while((open = message.indexOf('%', from)) >= 0){
+            int close = message.indexOf('%', open + 1);
+            if(close < 0){
+                break;
+            }
+            String name = message.substring(open + 1, close);
+            int placeholder;
+            if(name.equals("location")){
+                placeholder = LOCATION;
+            } else if(name.equals("squiggle")){
+                placeholder = SQUIGGLE;
+            } else if(name.matches("detail[0-9]+")){
+                placeholder = Integer.parseInt(name.substring("detail".length()));
+            } else {
+                from = close;    //Not a placeholder; its closing % may open the next one.
+                continue;
+            }
+            texts.add(message.substring(start, open));
+            placeholders.add(placeholder);
+            names.add(message.substring(open, close + 1));
+            start = from = close + 1;
+        }
+        texts.add(message.substring(start));
+
+        this.texts = texts.toArray(new String[0]);
+        this.placeholders = placeholders.stream().mapToInt(Integer::intValue).toArray();
+        this.names = names.toArray(new String[0]);
+    }
+
+    /**
+     * @param locale The locale of the message.
+     * @param error The error.
+     * @return The template for the error's message.
+     */
+    static MessageTemplate of(Locale locale, CompileError.Error error){
+        MessageTemplate[] templates = TEMPLATES.computeIfAbsent(locale, key -> {
+            ResourceBundle bundle = ResourceBundle.getBundle("Interpreter.errors", key);
+            MessageTemplate[] parsed = new MessageTemplate[CompileError.Error.values().length];
+            for(CompileError.Error each: CompileError.Error.values()){
+                parsed[each.ordinal()] = new MessageTemplate(bundle.getString(each.name()));
+            }
+            return parsed;
+        });
+        return templates[error.ordinal()];
+    }
+
+    /**
+     * Writes the message for an error.
+     * @param out Where to write it.
+     * @param line The line of the error, or -1 if it has none.
+     * @param pos The character of the error in its line, or -1 if it has none.
+     * @param details The error's details. Each is written with String.valueOf, so it can be built only now.
+     */
+    void format(Appendable out, int line, int pos, Object[] details) throws IOException {
+        boolean located = line != -1 && pos != -1;
+        for(int i = 0; i < placeholders.length; i++){
+            out.append(texts[i]);
+            int placeholder = placeholders[i];
+            if(placeholder >= 0 && placeholder < details.length){
+                out.append(String.valueOf(details[placeholder]));
+            } else if(placeholder == LOCATION && located){
+                out.append("line ").append(Integer.toString(line)).append(", character ").append(Integer.toString(pos));
+            } else if(placeholder == SQUIGGLE && located){
+                for(int j = 0; j < pos - 1; j++){
+                    out.append('~');
+                }
+                out.append('^');
+            } else {
+                out.append(names[i]);
+            }
+        }
+        out.append(texts[texts.length - 1]);
+    }
+}
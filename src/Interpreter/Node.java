@@ -0,0 +1,421 @@
+package Interpreter;
+
+/**
+ * An executable tree built from an Expression by NodeBuilder, for -p nodes.
+ * Operator nodes start out uninitialized. The first time one runs it looks at its operands' types and replaces
+ * itself in its parent with a node specialised for them, e.g. one that adds two doubles. If a specialised node
+ * later gets operands it was not made for, it replaces itself with a generic node that handles anything.
+ * Specialised numeric nodes pass doubles between each other through executeDouble, without boxing.
+ */
+abstract class Node {
+
+    /**
+     * Thrown by executeDouble when the value is not a number. Carries the value, so nothing is evaluated twice.
+     * It has no stack trace, which makes it cheap to throw.
+     */
+    static class UnexpectedResult extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        final Object result;
+
+        UnexpectedResult(Object result){
+            super(null, null, false, false);
+            this.result = result;
+        }
+    }
+
+    Node parent;
+
+    /**
+     * @return The node's value.
+     */
+    abstract Object execute();
+
+    /**
+     * @return The node's value, if it is a number.
+     * @throws UnexpectedResult if the value is anything else.
+     */
+    double executeDouble() throws UnexpectedResult {
+        return expectDouble(execute());
+    }
+
+    /**
+     * For a specialised numeric node that had to fall back on Operators, whose result may or may not be a number.
+     */
+    static double expectDouble(Object result) throws UnexpectedResult {
+        if(result instanceof Double){
+            return (double) result;
+        }
+        throw new UnexpectedResult(result);
+    }
+
+    /**
+     * Puts another node in this one's place in the tree.
+     * @param replacement The new node, which takes over this one's children.
+     * @return The replacement.
+     */
+    <T extends Node> T replace(T replacement){
+        replacement.parent = parent;
+        parent.replaceChild(this, replacement);
+        return replacement;
+    }
+
+    /**
+     * Swaps one of this node's children for another.
+     */
+    void replaceChild(Node child, Node replacement){
+        throw new IllegalStateException(getClass().getSimpleName() + " has no children");
+    }
+
+    <T extends Node> T adopt(T child){
+        child.parent = this;
+        return child;
+    }
+
+    /**
+     * The top of a tree, so that the node under it can be replaced like any other.
+     */
+    static class Root extends Node {
+        private Node body;
+
+        Root(Node body){
+            this.body = adopt(body);
+        }
+
+        @Override
+        Object execute(){
+            return body.execute();
+        }
+
+        @Override
+        void replaceChild(Node child, Node replacement){
+            body = replacement;
+        }
+    }
+
+    static class NumberLiteral extends Node {
+        private final double value;
+        private final Double boxed;
+
+        NumberLiteral(Double value){
+            this.value = value;
+            this.boxed = value;
+        }
+
+        @Override
+        Object execute(){
+            return boxed;
+        }
+
+        @Override
+        double executeDouble(){
+            return value;
+        }
+    }
+
+    static class ValueLiteral extends Node {
+        private final Object value;
+
+        ValueLiteral(Object value){
+            this.value = value;
+        }
+
+        @Override
+        Object execute(){
+            return value;
+        }
+    }
+
+    static class Ternary extends Node {
+        private Node condition;
+        private Node center;
+        private Node right;
+
+        Ternary(Node condition, Node center, Node right){
+            this.condition = adopt(condition);
+            this.center = adopt(center);
+            this.right = adopt(right);
+        }
+
+        @Override
+        Object execute(){
+            return Operators.isTruthy(condition.execute()) ? center.execute() : right.execute();
+        }
+
+        @Override
+        double executeDouble() throws UnexpectedResult {
+            return Operators.isTruthy(condition.execute()) ? center.executeDouble() : right.executeDouble();
+        }
+
+        @Override
+        void replaceChild(Node child, Node replacement){
+            if(condition == child){
+                condition = replacement;
+            } else if(center == child){
+                center = replacement;
+            } else {
+                right = replacement;
+            }
+        }
+    }
+
+    abstract static class Unary extends Node {
+        final Lexer.TokenType operator;
+        Node right;
+
+        Unary(Lexer.TokenType operator, Node right){
+            this.operator = operator;
+            this.right = adopt(right);
+        }
+
+        @Override
+        void replaceChild(Node child, Node replacement){
+            right = replacement;
+        }
+
+        /**
+         * Gives up on specialising: replaces this node with a generic one and finishes the operation with it.
+         */
+        Object generalize(Object value){
+            replace(new GenericUnary(operator, right));
+            return Operators.unary(operator, value);
+        }
+    }
+
+    static class UninitializedUnary extends Unary {
+        UninitializedUnary(Lexer.TokenType operator, Node right){
+            super(operator, right);
+        }
+
+        @Override
+        Object execute(){
+            Object value = right.execute();
+            if(value instanceof Double && operator != Lexer.TokenType.BANG){
+                replace(new DoubleUnary(operator, right));
+            } else {
+                replace(new GenericUnary(operator, right));
+            }
+            return Operators.unary(operator, value);
+        }
+    }
+
+    /**
+     * - or ~ on a number.
+     */
+    static class DoubleUnary extends Unary {
+        DoubleUnary(Lexer.TokenType operator, Node right){
+            super(operator, right);
+        }
+
+        @Override
+        Object execute(){
+            try{
+                return executeDouble();
+            } catch (UnexpectedResult e){
+                return e.result;
+            }
+        }
+
+        @Override
+        double executeDouble() throws UnexpectedResult {
+            double value;
+            try{
+                value = right.executeDouble();
+            } catch (UnexpectedResult e){
+                return expectDouble(generalize(e.result));
+            }
+            return operator == Lexer.TokenType.MINUS ? -value : ~(int) value;
+        }
+    }
+
+    static class GenericUnary extends Unary {
+        GenericUnary(Lexer.TokenType operator, Node right){
+            super(operator, right);
+        }
+
+        @Override
+        Object execute(){
+            return Operators.unary(operator, right.execute());
+        }
+    }
+
+    abstract static class Binary extends Node {
+        final Lexer.TokenType operator;
+        Node left;
+        Node right;
+
+        Binary(Lexer.TokenType operator, Node left, Node right){
+            this.operator = operator;
+            this.left = adopt(left);
+            this.right = adopt(right);
+        }
+
+        @Override
+        void replaceChild(Node child, Node replacement){
+            if(left == child){
+                left = replacement;
+            } else {
+                right = replacement;
+            }
+        }
+
+        /**
+         * Gives up on specialising: replaces this node with a generic one and finishes the operation with it.
+         */
+        Object generalize(Object leftValue, Object rightValue){
+            replace(new GenericBinary(operator, left, right));
+            return Operators.binary(operator, leftValue, rightValue);
+        }
+    }
+
+    static class UninitializedBinary extends Binary {
+        UninitializedBinary(Lexer.TokenType operator, Node left, Node right){
+            super(operator, left, right);
+        }
+
+        @Override
+        Object execute(){
+            Object leftValue = left.execute();
+            Object rightValue = right.execute();
+
+            if(leftValue instanceof Double && rightValue instanceof Double){
+                switch(operator){
+                    case PLUS: case MINUS: case STAR: case SLASH: case STAR_STAR: case LEFT_SHIFT: case RIGHT_SHIFT:
+                        replace(new DoubleArithmetic(operator, left, right));
+                        break;
+                    case GREATER: case GREATER_EQUAL: case LESS: case LESS_EQUAL: case EQUAL_EQUAL: case BANG_EQUAL:
+                        replace(new DoubleComparison(operator, left, right));
+                        break;
+                    default:
+                        replace(new GenericBinary(operator, left, right));
+                }
+            } else if(operator == Lexer.TokenType.PLUS && leftValue instanceof String && rightValue instanceof String){
+                replace(new StringConcatenation(operator, left, right));
+            } else {
+                replace(new GenericBinary(operator, left, right));
+            }
+            return Operators.binary(operator, leftValue, rightValue);
+        }
+    }
+
+    /**
+     * Arithmetic or a shift on two numbers.
+     */
+    static class DoubleArithmetic extends Binary {
+        DoubleArithmetic(Lexer.TokenType operator, Node left, Node right){
+            super(operator, left, right);
+        }
+
+        @Override
+        Object execute(){
+            try{
+                return executeDouble();
+            } catch (UnexpectedResult e){
+                return e.result;
+            }
+        }
+
+        @Override
+        double executeDouble() throws UnexpectedResult {
+            double leftValue;
+            double rightValue;
+            try{
+                leftValue = left.executeDouble();
+            } catch (UnexpectedResult e){
+                return expectDouble(generalize(e.result, right.execute()));
+            }
+            try{
+                rightValue = right.executeDouble();
+            } catch (UnexpectedResult e){
+                return expectDouble(generalize(leftValue, e.result));
+            }
+
+            switch(operator){
+                case PLUS:
+                    return leftValue + rightValue;
+                case MINUS:
+                    return leftValue - rightValue;
+                case STAR:
+                    return leftValue * rightValue;
+                case SLASH:
+                    return leftValue / rightValue;
+                case STAR_STAR:
+                    return Math.pow(leftValue, rightValue);
+                case LEFT_SHIFT:
+                    return (int) leftValue << (int) rightValue;
+                default:
+                    return (int) leftValue >> (int) rightValue;
+            }
+        }
+    }
+
+    /**
+     * A comparison of two numbers.
+     */
+    static class DoubleComparison extends Binary {
+        DoubleComparison(Lexer.TokenType operator, Node left, Node right){
+            super(operator, left, right);
+        }
+
+        @Override
+        Object execute(){
+            double leftValue;
+            double rightValue;
+            try{
+                leftValue = left.executeDouble();
+            } catch (UnexpectedResult e){
+                return generalize(e.result, right.execute());
+            }
+            try{
+                rightValue = right.executeDouble();
+            } catch (UnexpectedResult e){
+                return generalize(leftValue, e.result);
+            }
+
+            switch(operator){
+                case GREATER:
+                    return leftValue > rightValue;
+                case GREATER_EQUAL:
+                    return leftValue >= rightValue;
+                case LESS:
+                    return leftValue < rightValue;
+                case LESS_EQUAL:
+                    return leftValue <= rightValue;
+                case EQUAL_EQUAL:
+                    return Double.doubleToLongBits(leftValue) == Double.doubleToLongBits(rightValue);
+                default:
+                    return Double.doubleToLongBits(leftValue) != Double.doubleToLongBits(rightValue);
+            }
+        }
+    }
+
+    /**
+     * + on two Strings.
+     */
+    static class StringConcatenation extends Binary {
+        StringConcatenation(Lexer.TokenType operator, Node left, Node right){
+            super(operator, left, right);
+        }
+
+        @Override
+        Object execute(){
+            Object leftValue = left.execute();
+            Object rightValue = right.execute();
+            if(leftValue instanceof String && rightValue instanceof String){
+                return (String) leftValue + rightValue;
+            }
+            return generalize(leftValue, rightValue);
+        }
+    }
+
+    static class GenericBinary extends Binary {
+        GenericBinary(Lexer.TokenType operator, Node left, Node right){
+            super(operator, left, right);
+        }
+
+        @Override
+        Object execute(){
+            return Operators.binary(operator, left.execute(), right.execute());
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package Interpreter;
+
+/**
+ * Builds the executable Node tree for an Expression, and is the engine for -p nodes.
+ * Each prepared program has its own tree, which specialises itself to the values it sees as it runs.
+ */
+class NodeBuilder implements Expression.Visitor<Node>, Engine {
+
+    @Override
+    public Program prepare(Expression expression){
+        Node.Root root = new Node.Root(expression.accept(this));
+        return root::execute;
+    }
+
+    @Override
+    public Node visitBinaryExpression(Expression.Binary expression){
+        return new Node.UninitializedBinary(expression.operator.type,
+                expression.left.accept(this), expression.right.accept(this));
+    }
+
+    @Override
+    public Node visitGroupingExpression(Expression.Grouping expression){
+        return expression.expression.accept(this);
+    }
+
+    @Override
+    public Node visitLiteralExpression(Expression.Literal expression){
+        if(expression.value instanceof Double){
+            return new Node.NumberLiteral((Double) expression.value);
+        }
+        return new Node.ValueLiteral(expression.value);
+    }
+
+    @Override
+    public Node visitUnaryExpression(Expression.Unary expression){
+        return new Node.UninitializedUnary(expression.operator.type, expression.right.accept(this));
+    }
+
+    @Override
+    public Node visitTernaryExpression(Expression.Ternary expression){
+        return new Node.Ternary(expression.left.accept(this), expression.center.accept(this),
+                expression.right.accept(this));
+    }
+}
@@ -0,0 +1,73 @@
+package Interpreter;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Finds every subtree that is sure to evaluate to a number without failing.
+ * Those can be evaluated as a primitive double, see Interpreter.evaluateDouble.
+ * A subtree is numeric when it is a number literal, or an arithmetic, shift, negation or ~ whose operands are
+ * all numeric, or a ternary whose two branches are numeric. Anything that reads a String, a Boolean or nil is not.
+ * The result is kept by whoever asked for it rather than in the tree, which other engines and threads share.
+ */
+class NumericInference implements Expression.Visitor<Boolean> {
+
+    private final Set<Expression> numeric = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * @param expression The tree to look at.
+     * @return Its numeric subtrees, by identity.
+     */
+    static Set<Expression> infer(Expression expression){
+        NumericInference inference = new NumericInference();
+        expression.accept(inference);
+        return inference.numeric;
+    }
+
+    private boolean mark(Expression expression, boolean isNumeric){
+        if(isNumeric){
+            numeric.add(expression);
+        }
+        return isNumeric;
+    }
+
+    @Override
+    public Boolean visitBinaryExpression(Expression.Binary expression){
+        boolean left = expression.left.accept(this);
+        boolean right = expression.right.accept(this);
+        switch(expression.operator.type){
+            case PLUS: case MINUS: case STAR: case SLASH: case STAR_STAR: case LEFT_SHIFT: case RIGHT_SHIFT:
+                return mark(expression, left && right);
+        }
+        return false;
+    }
+
+    @Override
+    public Boolean visitGroupingExpression(Expression.Grouping expression){
+        return mark(expression, expression.expression.accept(this));
+    }
+
+    @Override
+    public Boolean visitLiteralExpression(Expression.Literal expression){
+        return mark(expression, expression.value instanceof Double);
+    }
+
+    @Override
+    public Boolean visitUnaryExpression(Expression.Unary expression){
+        boolean right = expression.right.accept(this);
+        switch(expression.operator.type){
+            case MINUS: case B_NOT:
+                return mark(expression, right);
+        }
+        return false;
+    }
+
+    @Override
+    public Boolean visitTernaryExpression(Expression.Ternary expression){
+        expression.left.accept(this);
+        boolean center = expression.center.accept(this);
+        boolean right = expression.right.accept(this);
+        return mark(expression, center && right);
+    }
+}
@@ -0,0 +1,106 @@
+package Interpreter;
+
+/**
+ * What each operator does to its operands' values. Every execution engine uses these for anything it does not
+ * handle itself, so that all engines give the same results and fail in the same ways.
+ */
+final class Operators {
+
+    private Operators(){}
+
+    /**
+     * Applies a unary operator.
+     * @param operator The operator's token type.
+     * @param right The operand's value.
+     * @return The result, or null for an operator with no meaning yet.
+     */
+    static Object unary(Lexer.TokenType operator, Object right){
+        switch(operator){
+            case MINUS:
+                return -(double)right;
+            case BANG:
+                return isTruthy(right);
+            case B_NOT:
+                if(right instanceof Double){
+                    return (double)~(int)((double) right); //hohoho what an evil thing this would be to do.
+                }
+        }
+
+        return null;
+    }
+
+    /**
+     * Applies a binary operator.
+     * @param operator The operator's token type.
+     * @param left The left operand's value.
+     * @param right The right operand's value.
+     * @return The result, or null for an operator with no meaning yet.
+     */
+    static Object binary(Lexer.TokenType operator, Object left, Object right){
+        switch(operator){
+            case MINUS:
+                return (double)left - (double)right;
+            case SLASH:
+                return (double)left / (double)right;
+            case STAR:
+                return (double)left * (double)right;
+            case STAR_STAR:
+                return Math.pow((double)left, (double)right);
+            case PLUS:
+                if(left instanceof Double && right instanceof Double){
+                    return (double) left + (double) right;
+                }
+                if(left instanceof String && right instanceof String){
+                    return left.toString() + right.toString();
+                }
+                if((left instanceof String && right instanceof Double) ||
+                        (left instanceof Double && right instanceof String)){
+                    return left.toString() + right.toString();
+                }
+            case GREATER:
+                return (double)left > (double)right;
+            case GREATER_EQUAL:
+                return (double)left >= (double)right;
+            case LESS:
+                return (double)left < (double)right;
+            case LESS_EQUAL:
+                return (double)left <= (double)right;
+            case BANG_EQUAL:
+                return !isEqual(left, right);
+            case EQUAL_EQUAL:
+                return isEqual(left, right);
+            case LEFT_SHIFT:
+                return (double)((int)(double)left << (int)(double)right);
+            case RIGHT_SHIFT:
+                return (double)((int)(double)left >> (int)(double)right);
+        }
+
+        return null;
+    }
+
+    /**
+     * nil and false are false, everything else is true.
+     */
+    static boolean isTruthy(Object object){
+        if(object == null){
+            return false;
+        }
+        if(object instanceof Boolean) {
+            return (boolean)object;
+        }
+        return true;
+    }
+
+    /**
+     * Equality as Double.equals has it, so NaN equals itself and 0.0 does not equal -0.0.
+     */
+    static boolean isEqual(Object a, Object b){
+        if(a == null && b == null){
+            return true;
+        }
+        if(a == null){
+            return false;
+        }
+        return a.equals(b);
+    }
+}
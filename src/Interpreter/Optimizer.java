@@ -0,0 +1,352 @@
+package Interpreter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs a series of rewriting passes over the syntax trees between parsing and evaluation, turned on by -o.
+ * Every pass must leave the value of an expression unchanged, including any error evaluating it would hit.
+ * The time each pass takes and how many nodes it removes is kept for reporting.
+ */
+class Optimizer {
+
+    /**
+     * What one pass did to all of the expressions.
+     */
+    static class Report {
+        final String pass;
+        final long nanos;
+        final int nodesBefore;
+        final int nodesAfter;
+
+        Report(String pass, long nanos, int nodesBefore, int nodesAfter){
+            this.pass = pass;
+            this.nanos = nanos;
+            this.nodesBefore = nodesBefore;
+            this.nodesAfter = nodesAfter;
+        }
+    }
+
+    private final List<Pass> passes = new ArrayList<>();
+    private final List<Report> reports = new ArrayList<>();
+
+    /**
+     * An Optimizer with every pass, in the order they run.
+     */
+    Optimizer(){
+        passes.add(new ConstantFolding());
+        passes.add(new AlgebraicSimplification());
+        passes.add(new DeadBranchElimination());
+    }
+
+    /**
+     * Runs every pass over every expression.
+     * @param expressions The parsed expressions.
+     * @return The optimized expressions, in the same order.
+     */
+    List<Expression> optimize(List<Expression> expressions){
+        int nodes = count(expressions);
+        for(Pass pass: passes){
+            long begin = System.nanoTime();
+            List<Expression> optimized = new ArrayList<>(expressions.size());
+            for(Expression expression: expressions){
+                optimized.add(expression.accept(pass));
+            }
+            long nanos = System.nanoTime() - begin;
+
+            int after = count(optimized);
+            reports.add(new Report(pass.name(), nanos, nodes, after));
+            expressions = optimized;
+            nodes = after;
+        }
+        return expressions;
+    }
+
+    /**
+     * @return What each pass did, in the order they ran.
+     */
+    List<Report> reports(){
+        return reports;
+    }
+
+    /**
+     * @return How many nodes there are in every expression, counting a shared node once per parent.
+     */
+    static int count(List<Expression> expressions){
+        //Walked with a stack rather than recursion, so that it works on trees parsed with -s.
+        ArrayDeque<Expression> work = new ArrayDeque<>();
+        int nodes = 0;
+        for(Expression expression: expressions){
+            work.push(expression);
+            while(!work.isEmpty()){
+                Expression next = work.pop();
+                nodes++;
+                if(next instanceof Expression.Binary){
+                    work.push(((Expression.Binary) next).right);
+                    work.push(((Expression.Binary) next).left);
+                } else if(next instanceof Expression.Unary){
+                    work.push(((Expression.Unary) next).right);
+                } else if(next instanceof Expression.Grouping){
+                    work.push(((Expression.Grouping) next).expression);
+                } else if(next instanceof Expression.Ternary){
+                    work.push(((Expression.Ternary) next).right);
+                    work.push(((Expression.Ternary) next).center);
+                    work.push(((Expression.Ternary) next).left);
+                }
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * A pass that rewrites trees bottom up. By default it only rebuilds a node whose children changed;
+     * passes override the visit methods for the nodes they rewrite, after calling the default.
+     */
+    abstract static class Pass implements Expression.Visitor<Expression> {
+
+        abstract String name();
+
+        @Override
+        public Expression visitBinaryExpression(Expression.Binary expression){
+            Expression left = expression.left.accept(this);
+            Expression right = expression.right.accept(this);
+            if(left == expression.left && right == expression.right){
+                return expression;
+            }
+            return new Expression.Binary(left, expression.operator, right);
+        }
+
+        @Override
+        public Expression visitGroupingExpression(Expression.Grouping expression){
+            Expression inner = expression.expression.accept(this);
+            return inner == expression.expression ? expression : new Expression.Grouping(inner);
+        }
+
+        @Override
+        public Expression visitLiteralExpression(Expression.Literal expression){
+            return expression;
+        }
+
+        @Override
+        public Expression visitUnaryExpression(Expression.Unary expression){
+            Expression right = expression.right.accept(this);
+            return right == expression.right ? expression : new Expression.Unary(expression.operator, right);
+        }
+
+        @Override
+        public Expression visitTernaryExpression(Expression.Ternary expression){
+            Expression left = expression.left.accept(this);
+            Expression center = expression.center.accept(this);
+            Expression right = expression.right.accept(this);
+            if(left == expression.left && center == expression.center && right == expression.right){
+                return expression;
+            }
+            return new Expression.Ternary(expression.type, left, center, right);
+        }
+    }
+
+    /**
+     * Evaluates operators whose operands are all literals, and drops parentheses around literals.
+     * The Interpreter does the arithmetic, so a folded value is exactly what evaluating it would give.
+     * An operation the Interpreter would fail on is left alone, so that it still fails when the code runs.
+     * Those are found by checking operand types first, since letting the Interpreter throw is slow.
+     */
+    static class ConstantFolding extends Pass {
+
+        private final Interpreter interpreter = new Interpreter();
+
+        @Override
+        String name(){
+            return "constant folding";
+        }
+
+        @Override
+        public Expression visitBinaryExpression(Expression.Binary expression){
+            Expression folded = super.visitBinaryExpression(expression);
+            Expression.Binary binary = (Expression.Binary) folded;
+            if(binary.left instanceof Expression.Literal && binary.right instanceof Expression.Literal
+                    && succeeds(binary.operator.type, ((Expression.Literal) binary.left).value,
+                    ((Expression.Literal) binary.right).value)){
+                return fold(binary);
+            }
+            return folded;
+        }
+
+        @Override
+        public Expression visitGroupingExpression(Expression.Grouping expression){
+            Expression folded = super.visitGroupingExpression(expression);
+            Expression inner = ((Expression.Grouping) folded).expression;
+            return inner instanceof Expression.Literal ? inner : folded;
+        }
+
+        @Override
+        public Expression visitUnaryExpression(Expression.Unary expression){
+            Expression folded = super.visitUnaryExpression(expression);
+            Expression.Unary unary = (Expression.Unary) folded;
+            if(unary.right instanceof Expression.Literal
+                    && (unary.operator.type != Lexer.TokenType.MINUS || ((Expression.Literal) unary.right).value instanceof Double)){
+                return fold(unary);
+            }
+            return folded;
+        }
+
+        @Override
+        public Expression visitTernaryExpression(Expression.Ternary expression){
+            Expression folded = super.visitTernaryExpression(expression);
+            Expression.Ternary ternary = (Expression.Ternary) folded;
+            if(ternary.left instanceof Expression.Literal && ternary.center instanceof Expression.Literal
+                    && ternary.right instanceof Expression.Literal){
+                return fold(ternary);
+            }
+            return folded;
+        }
+
+        private Expression fold(Expression expression){
+            return new Expression.Literal(interpreter.evaluate(expression));
+        }
+
+        /**
+         * Whether the Interpreter can apply a binary operator to two values without failing.
+         */
+        private static boolean succeeds(Lexer.TokenType operator, Object left, Object right){
+            switch(operator){
+                case EQUAL_EQUAL: case BANG_EQUAL:
+                    return true;
+                case PLUS:
+                    //Strings join with Strings and numbers; anything else falls through to >, which needs numbers.
+                    if((left instanceof String || left instanceof Double) && (right instanceof String || right instanceof Double)){
+                        return true;
+                    }
+                    break;
+                case MINUS: case SLASH: case STAR: case STAR_STAR: case LEFT_SHIFT: case RIGHT_SHIFT:
+                case GREATER: case GREATER_EQUAL: case LESS: case LESS_EQUAL:
+                    break;
+                default:
+                    return true;    //The Interpreter gives nil for operators it does not support yet.
+            }
+            return left instanceof Double && right instanceof Double;
+        }
+    }
+
+    /**
+     * Removes operations that do nothing to a number: x * 1, 1 * x, x / 1, x ** 1, x - 0, x + -0 and -0 + x.
+     * x must be known to be a number, because e.g. "a" + 0 is "a0.0" and "a" * 1 is an error.
+     * x + 0 is kept, since -0.0 + 0 is 0.0.
+     */
+    static class AlgebraicSimplification extends Pass {
+
+        @Override
+        String name(){
+            return "algebraic simplification";
+        }
+
+        @Override
+        public Expression visitBinaryExpression(Expression.Binary expression){
+            Expression simplified = super.visitBinaryExpression(expression);
+            Expression.Binary binary = (Expression.Binary) simplified;
+            Expression left = binary.left;
+            Expression right = binary.right;
+
+            switch(binary.operator.type){
+                case STAR:
+                    if(isConstant(right, 1) && isNumber(left)){
+                        return left;
+                    }
+                    if(isConstant(left, 1) && isNumber(right)){
+                        return right;
+                    }
+                    break;
+                case PLUS:
+                    if(isConstant(right, -0.0) && isNumber(left)){
+                        return left;
+                    }
+                    if(isConstant(left, -0.0) && isNumber(right)){
+                        return right;
+                    }
+                    break;
+                case SLASH:
+                case STAR_STAR:
+                    if(isConstant(right, 1) && isNumber(left)){
+                        return left;
+                    }
+                    break;
+                case MINUS:
+                    if(isConstant(right, 0) && isNumber(left)){
+                        return left;
+                    }
+                    break;
+            }
+
+            return simplified;
+        }
+    }
+
+    /**
+     * Replaces a ternary whose condition is a literal with the branch that would be taken.
+     */
+    static class DeadBranchElimination extends Pass {
+
+        @Override
+        String name(){
+            return "dead branch elimination";
+        }
+
+        @Override
+        public Expression visitTernaryExpression(Expression.Ternary expression){
+            Expression eliminated = super.visitTernaryExpression(expression);
+            Expression.Ternary ternary = (Expression.Ternary) eliminated;
+            if(ternary.left instanceof Expression.Literal){
+                Object condition = ((Expression.Literal) ternary.left).value;
+                //Same truthiness as the Interpreter: only nil and false are false.
+                boolean truthy = condition != null && !Boolean.FALSE.equals(condition);
+                return truthy ? ternary.center : ternary.right;
+            }
+            return eliminated;
+        }
+    }
+
+    /**
+     * Whether an expression is a literal number. 0.0 and -0.0 are different constants.
+     */
+    private static boolean isConstant(Expression expression, double value){
+        return expression instanceof Expression.Literal && Double.valueOf(value).equals(((Expression.Literal) expression).value);
+    }
+
+    /**
+     * Whether an expression always evaluates to a number, or fails; never to a String, Boolean or nil.
+     */
+    private static boolean isNumber(Expression expression){
+        if(expression instanceof Expression.Literal){
+            return ((Expression.Literal) expression).value instanceof Double;
+        }
+        if(expression instanceof Expression.Grouping){
+            return isNumber(((Expression.Grouping) expression).expression);
+        }
+        if(expression instanceof Expression.Unary){
+            Expression.Unary unary = (Expression.Unary) expression;
+            switch(unary.operator.type){
+                case MINUS:
+                    return true;
+                case B_NOT:
+                    return isNumber(unary.right);   //~ gives nil for anything but a number.
+            }
+            return false;
+        }
+        if(expression instanceof Expression.Binary){
+            Expression.Binary binary = (Expression.Binary) expression;
+            switch(binary.operator.type){
+                case MINUS: case SLASH: case STAR: case STAR_STAR: case LEFT_SHIFT: case RIGHT_SHIFT:
+                    return true;
+                case PLUS:
+                    return isNumber(binary.left) && isNumber(binary.right);
+            }
+            return false;
+        }
+        if(expression instanceof Expression.Ternary){
+            Expression.Ternary ternary = (Expression.Ternary) expression;
+            return isNumber(ternary.center) && isNumber(ternary.right);
+        }
+        return false;
+    }
+}
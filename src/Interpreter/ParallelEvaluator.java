@@ -0,0 +1,152 @@
+package Interpreter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
+/**
+ * Evaluates a file's top-level expressions, spreading those that are independent of each other over a
+ * ForkJoinPool. Results are still reported in source order, and a failure is thrown only after the results of
+ * every expression before it, as if they had been evaluated one by one.
+ *
+ * An expression that is not pure (see isPure) waits for everything before it, and everything after it waits for
+ * it. Today every expression is pure, since nothing can be stored or printed, so all of them are independent.
+ */
+class ParallelEvaluator {
+
+    //Expressions handed to a worker at a time, so that small ones are not swamped by scheduling.
+    private static final int BLOCK = 64;
+
+    private final Engine engine;
+    private final int threads;
+
+    /**
+     * @param engine What prepares and evaluates each expression. One that is not thread safe only ever gets one
+     *               thread.
+     * @param threads How many expressions may be evaluated at once.
+     */
+    ParallelEvaluator(Engine engine, int threads){
+        this.engine = engine;
+        this.threads = engine.isThreadSafe() ? threads : 1;
+    }
+
+    /**
+     * @param expressions The expressions, in source order.
+     * @param results Given each expression's value, in source order.
+     */
+    void evaluate(List<Expression> expressions, Consumer<Object> results){
+        int count = expressions.size();
+        Engine.Program[] programs = new Engine.Program[count];
+        if(threads <= 1){
+            for(int i = 0; i < count; i++){
+                programs[i] = engine.prepare(expressions.get(i));
+            }
+            for(Engine.Program program: programs){
+                results.accept(program.run());
+            }
+            return;
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try{
+            //Preparing and analysing each expression takes about as long as evaluating it, so it is spread out too.
+            boolean[] pure = new boolean[count];
+            List<ForkJoinTask<?>> blocks = new ArrayList<>();
+            for(int start = 0; start < count; start += BLOCK){
+                int first = start;
+                int end = Math.min(start + BLOCK, count);
+                blocks.add(pool.submit(() -> {
+                    for(int i = first; i < end; i++){
+                        programs[i] = engine.prepare(expressions.get(i));
+                        pure[i] = isPure(expressions.get(i));
+                    }
+                }));
+            }
+            for(ForkJoinTask<?> block: blocks){
+                block.join();
+            }
+
+            int from = 0;
+            while(from < count){
+                //Everything up to the next impure expression can run at once; that one then runs alone.
+                int to = from;
+                while(to < count && pure[to]){
+                    to++;
+                }
+                if(to == from){
+                    to++;
+                }
+                evaluate(pool, programs, from, to, results);
+                from = to;
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void evaluate(ForkJoinPool pool, Engine.Program[] programs, int from, int to,
+                                 Consumer<Object> results){
+        int count = to - from;
+        Object[] values = new Object[count];
+        RuntimeException[] failures = new RuntimeException[count];
+        List<ForkJoinTask<?>> blocks = new ArrayList<>();
+        for(int start = 0; start < count; start += BLOCK){
+            int first = start;
+            int end = Math.min(start + BLOCK, count);
+            blocks.add(pool.submit(() -> {
+                for(int i = first; i < end; i++){
+                    try{
+                        values[i] = programs[from + i].run();
+                    } catch (RuntimeException e){
+                        failures[i] = e;
+                        return;     //Nothing after a failure in the block is needed.
+                    }
+                }
+            }));
+        }
+
+        for(int block = 0; block < blocks.size(); block++){
+            blocks.get(block).join();
+            int end = Math.min((block + 1) * BLOCK, count);
+            for(int i = block * BLOCK; i < end; i++){
+                if(failures[i] != null){
+                    for(ForkJoinTask<?> later: blocks){
+                        later.cancel(false);
+                    }
+                    throw failures[i];
+                }
+                results.accept(values[i]);
+            }
+        }
+    }
+
+    /**
+     * @return true if an expression neither depends on nor affects any other, so it can run whenever.
+     */
+    static boolean isPure(Expression expression){
+        //Walked with a stack rather than recursion, so that it works on trees parsed with -s.
+        ArrayDeque<Expression> work = new ArrayDeque<>();
+        work.push(expression);
+        while(!work.isEmpty()){
+            Expression next = work.pop();
+            if(next instanceof Expression.Binary){
+                work.push(((Expression.Binary) next).left);
+                work.push(((Expression.Binary) next).right);
+            } else if(next instanceof Expression.Unary){
+                work.push(((Expression.Unary) next).right);
+            } else if(next instanceof Expression.Grouping){
+                work.push(((Expression.Grouping) next).expression);
+            } else if(next instanceof Expression.Ternary){
+                work.push(((Expression.Ternary) next).left);
+                work.push(((Expression.Ternary) next).center);
+                work.push(((Expression.Ternary) next).right);
+            } else if(!(next instanceof Expression.Literal)){
+                return false;   //Anything new is impure until it is known otherwise.
+            }
+        }
+        return true;
+    }
+}
@@ -1,176 +1,468 @@
 package Interpreter;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static Interpreter.Lexer.*;
 
+/**
+ * Turns tokens into syntax trees. Nothing is thrown on a syntax error: the error is reported to CompileError and
+ * the method that found it returns null, which every caller passes straight up.
+ * Unless errors are fatal, parseAll() then skips to the next statement and keeps parsing.
+ */
 public class Parser {
 
-    private static class ParseError extends RuntimeException {}
+    //Binding power of each binary operator, loosest first. NONE means the token is not a binary operator.
+    private static final int NONE = 0;
+    private static final int EQUALITY = 1;
+    private static final int COMPARISON = 2;
+    private static final int LOGIC = 3;
+    private static final int SHIFT = 4;
+    private static final int ADDITION = 5;
+    private static final int MULTIPLICATION = 6;
+    private static final int EXPONENT = 7;
+
+    private static final int[] PRECEDENCE = new int[TokenType.values().length];
+    private static final boolean[] PREFIX = new boolean[TokenType.values().length];
+
+    /**
+     * Fills in the operator tables. Every binary operator is left associative.
+     */
+    static {
+        binary(EQUALITY, TokenType.BANG_EQUAL, TokenType.EQUAL_EQUAL);
+        binary(COMPARISON, TokenType.GREATER, TokenType.GREATER_EQUAL, TokenType.LESS, TokenType.LESS_EQUAL);
+        binary(LOGIC, TokenType.AND, TokenType.OR, TokenType.B_OR, TokenType.B_AND, TokenType.B_XOR, TokenType.B_NAND);
+        binary(SHIFT, TokenType.LEFT_SHIFT, TokenType.RIGHT_SHIFT);
+        binary(ADDITION, TokenType.PLUS, TokenType.MINUS);
+        binary(MULTIPLICATION, TokenType.SLASH, TokenType.STAR);
+        binary(EXPONENT, TokenType.STAR_STAR);
+
+        for(TokenType type: new TokenType[]{TokenType.BANG, TokenType.MINUS, TokenType.B_NOT}){
+            PREFIX[type.ordinal()] = true;
+        }
+    }
 
-    private final List<Token> tokens;
-    private int current = 0;
+    private static void binary(int precedence, TokenType... types){
+        for(TokenType type: types){
+            PRECEDENCE[type.ordinal()] = precedence;
+        }
+    }
 
+    private final TokenCursor tokens;
+    private final boolean fatalErrors;
+    private int errors;
+    private ExpressionFactory nodes = ExpressionFactory.PLAIN;
+
+    //How deep the recursive parser may nest before parseStackSafe() takes over; see setStackSafe().
+    private static final int RECURSION_LIMIT = 256;
+    int recursionLimit = Integer.MAX_VALUE;
+    private int nesting;
+
+    //The stack-safe parser's frames, one per call the recursive parser would be in; see parseStackSafe().
+    private static final int RESUME_CONDITIONAL = 0;
+    private static final int RESUME_CENTER = 1;
+    private static final int RESUME_RIGHT = 2;
+    private static final int RESUME_BINARY = 3;
+    private static final int RESUME_BINARY_RIGHT = 4;
+    private static final int RESUME_UNARY = 5;
+    private static final int RESUME_GROUPING = 6;
+
+    //Each frame's kind, with binary()'s minimum above the low 3 bits, and what it holds: two slots per frame.
+    private int[] frames = new int[64];
+    private Object[] held = new Object[128];
+
+    /**
+     * A Parser over tokens that have all been lexed already.
+     * @param tokens The tokens, ending with EOF.
+     */
     Parser(List<Token> tokens){
-        this.tokens = tokens;
+        this.tokens = new StreamTokenCursor(tokens);
+        this.fatalErrors = true;
     }
 
-    public Expression parse(){
-        try{
-            return expression();
-        } catch (ParseError error){
-            return null;
-        }
+    /**
+     * A Parser that pulls tokens from the Lexer as it needs them, keeping only one token of lookahead.
+     * @param lexer The Lexer over the source code.
+     */
+    Parser(TokenStream lexer){
+        this(lexer, true);
     }
 
-    private Expression expression(){
-        //return equality();
-        return conditional();
+    /**
+     * A Parser that pulls tokens from the Lexer as it needs them, keeping only one token of lookahead.
+     * @param lexer The Lexer over the source code.
+     * @param fatalErrors true if the first syntax error should stop compilation, false to report it and recover.
+     */
+    Parser(TokenStream lexer, boolean fatalErrors){
+        this.tokens = new StreamTokenCursor(lexer, 1);
+        this.fatalErrors = fatalErrors;
     }
 
-    private Expression conditional(){
-        Expression expression = equality();
-
-        while(match(TokenType.QUESTION)){
-            Expression center = equality();
-            consume(TokenType.COLON, CompileError.Error.UnterminatedTernary);
-            Expression right = equality();
-            return new Expression.Ternary(Expression.Ternary.Type.CONDITIONAL, expression, center, right);
-        }
+    /**
+     * A Parser over a TokenBuffer. Token objects are only created for operators kept in the syntax tree.
+     * @param tokens The tokens, ending with EOF.
+     */
+    Parser(TokenBuffer tokens){
+        this.tokens = tokens.cursor();
+        this.fatalErrors = true;
+    }
 
-        return expression;
+    /**
+     * A Parser over part of a TokenBuffer, for re-parsing after an edit.
+     * Errors are reported without stopping compilation, and make parse() and parseStatement() return null.
+     * @param tokens The tokens.
+     * @param from The first token to parse.
+     * @param to The token after the last one to parse.
+     */
+    Parser(TokenBuffer tokens, int from, int to){
+        this.tokens = tokens.cursor(from, to);
+        this.fatalErrors = false;
     }
 
-    private Expression equality(){
-        Expression expression = comparison();
+    /**
+     * @param nodes What makes the syntax tree's nodes, e.g. an ExpressionFactory.HashConsing to share repeated
+     *              subexpressions.
+     */
+    void setFactory(ExpressionFactory nodes){
+        this.nodes = nodes;
+    }
 
-        while(match(TokenType.BANG_EQUAL, TokenType.EQUAL_EQUAL)){
-            Token operator = previous();
-            Expression right = comparison();
-            expression = new Expression.Binary(expression, operator, right);
-        }
+    /**
+     * @param stackSafe true to parse anything nested more than RECURSION_LIMIT deep with a stack of frames on the
+     *                  heap instead of recursing, so that nesting depth is limited only by memory. Shallower code
+     *                  is still parsed recursively, which is faster. The trees and errors are the same either way.
+     */
+    void setStackSafe(boolean stackSafe){
+        recursionLimit = stackSafe ? RECURSION_LIMIT : Integer.MAX_VALUE;
+    }
 
-        return expression;
+    /**
+     * Parses one expression.
+     * @return The expression, or null if it has a syntax error.
+     */
+    public Expression parse(){
+        return expression();
     }
 
-    private Expression comparison(){
-        Expression expression = logic();
+    /**
+     * Parses every expression up to EOF, each ending with a semicolon or EOF.
+     * After a syntax error the rest of the statement is skipped, so one pass reports every error in the code.
+     * @return The expressions without syntax errors, in order.
+     */
+    public List<Expression> parseAll(){
+        List<Expression> expressions = new ArrayList<>();
 
-        while(match(TokenType.GREATER, TokenType.GREATER_EQUAL, TokenType.LESS, TokenType.LESS_EQUAL)){
-            Token operator = previous();
-            Expression right = logic();
-            expression = new Expression.Binary(expression, operator, right);
+        while(!isAtEnd()){
+            Expression expression = statement();
+            if(expression != null){
+                expressions.add(expression);
+            }
         }
 
-        return expression;
+        return expressions;
     }
 
-    private Expression logic(){
-        Expression expression = addition();
-
-        while(match(TokenType.AND, TokenType.OR, TokenType.B_OR, TokenType.B_AND, TokenType.B_XOR, TokenType.B_NAND)){
-            Token operator = previous();
-            Expression right = addition();
-            expression = new Expression.Binary(expression, operator, right);
+    /**
+     * Parses everything up to where this Parser ends as one statement, with the errors parseAll() would report for
+     * it, e.g. for tokens left after the expression.
+     * @return The expression, or null if the statement has a syntax error.
+     */
+    Expression parseStatement(){
+        Expression expression = statement();
+        //Only after an error, if synchronize() stopped before the end.
+        while(!isAtEnd()){
+            statement();
         }
-
         return expression;
     }
 
-    private Expression addition(){
-        Expression expression = multiplication();
+    /**
+     * Parses an expression and the semicolon after it. After a syntax error, skips to the next statement.
+     * @return The expression, or null if it has a syntax error.
+     */
+    private Expression statement(){
+        Expression expression = expression();
+        if(expression != null && !match(TokenType.SEMICOLON) && !isAtEnd()){
+            error(peek(), CompileError.Error.ExpectedSemicolon);
+            expression = null;
+        }
 
-        while(match(TokenType.PLUS, TokenType.MINUS)){
-            Token operator = previous();
-            Expression right = multiplication();
-            expression = new Expression.Binary(expression, operator, right);
+        if(expression == null){
+            synchronize();
         }
+        return expression;
+    }
+
+    /**
+     * @return How many syntax errors have been reported.
+     */
+    int errors(){
+        return errors;
+    }
 
+    private Expression expression(){
+        //return equality();
+        Expression expression = ++nesting > recursionLimit ? parseStackSafe(RESUME_CONDITIONAL, EQUALITY) : conditional();
+        nesting--;
         return expression;
     }
 
-    private Expression multiplication(){
-        Expression expression = exponent();
+    /**
+     * The arms of a ternary are parsed at equality level, so a ternary inside one needs parentheses.
+     */
+    private Expression conditional(){
+        Expression expression = binary(EQUALITY);
 
-        while(match(TokenType.SLASH, TokenType.STAR)){
-            Token operator = previous();
-            Expression right = exponent();
-            expression = new Expression.Binary(expression, operator, right);
+        if(expression != null && match(TokenType.QUESTION)){
+            Expression center = binary(EQUALITY);
+            if(center == null || !consume(TokenType.COLON, CompileError.Error.UnterminatedTernary)){
+                return null;
+            }
+            Expression right = binary(EQUALITY);
+            if(right == null){
+                return null;
+            }
+            return nodes.ternary(Expression.Ternary.Type.CONDITIONAL, expression, center, right);
         }
 
         return expression;
     }
 
-    private Expression exponent(){
+    /**
+     * Parses a run of binary operators by precedence climbing, looking each operator up in PRECEDENCE.
+     * @param minimum The loosest operator to take; anything looser is left to the caller.
+     * @return The expression.
+     */
+    private Expression binary(int minimum){
         Expression expression = unary();
 
-        while(match(TokenType.STAR_STAR)){
+        while(expression != null){
+            int precedence = PRECEDENCE[tokens.peekType().ordinal()];
+            if(precedence == NONE || precedence < minimum){
+                return expression;
+            }
+            advance();
             Token operator = previous();
-            Expression right = unary();
-            expression = new Expression.Binary(expression, operator, right);
+            Expression right = binary(precedence + 1);
+            if(right == null){
+                return null;
+            }
+            expression = nodes.binary(expression, operator, right);
         }
 
-        return expression;
+        return null;
     }
 
     private Expression unary(){
-        if(match(TokenType.BANG, TokenType.MINUS, TokenType.B_NOT)){
+        if(PREFIX[tokens.peekType().ordinal()]){
+            advance();
             Token operator = previous();
-            Expression right = unary();
-            return new Expression.Unary(operator, right);
+            //binary() with a minimum no operator reaches is unary().
+            Expression right = ++nesting > recursionLimit ? parseStackSafe(RESUME_BINARY, EXPONENT + 1) : unary();
+            nesting--;
+            return right == null ? null : nodes.unary(operator, right);
         }
 
         return primary();
     }
 
     private Expression primary(){
-        if(match(TokenType.FALSE)){
-            return new Expression.Literal(false);
-        }
-        if(match(TokenType.TRUE)){
-            return new Expression.Literal(true);
-        }
-        if(match(TokenType.NIL)){
-            return new Expression.Literal(null);
-        }
-        if(match(TokenType.INTEGER, TokenType.DOUBLE, TokenType.STRING, TokenType.NUMBER)){
-            return new Expression.Literal(previous().literal);
+        switch(tokens.peekType()){
+            case FALSE:
+                advance();
+                return nodes.literal(false);
+            case TRUE:
+                advance();
+                return nodes.literal(true);
+            case NIL:
+                advance();
+                return nodes.literal(null);
+            case INTEGER: case DOUBLE: case STRING: case NUMBER:
+                advance();
+                return nodes.literal(tokens.previousLiteral());
+            case LEFT_PAREN:
+                advance();
+                Expression expression = expression();
+                if(expression == null || !consume(TokenType.RIGHT_PAREN, CompileError.Error.OpenLeftParen)){
+                    return null;
+                }
+                return nodes.grouping(expression);
         }
 
-        if(match(TokenType.LEFT_PAREN)){
-            Expression expression = expression();
-            consume(TokenType.RIGHT_PAREN, CompileError.Error.OpenLeftParen);
-            return new Expression.Grouping(expression);
+        error(peek(), CompileError.Error.ExpectedExpression);
+        return null;
+    }
+
+    /**
+     * Does what conditional() or binary() does, without recursing. Each method the recursive parser would be in is
+     * a frame saying where it left off and what it has so far. Calls run forwards until they reach a primary, then
+     * the result is handed back down the frames, some of which make another call.
+     * @param call What to parse: RESUME_CONDITIONAL for conditional(), RESUME_BINARY for binary(minimum).
+     * @param minimum The minimum for binary().
+     * @return The expression, or null if it has a syntax error.
+     */
+    private Expression parseStackSafe(int call, int minimum){
+        int depth = 0;
+        Expression result = null;
+        boolean calling = true;
+
+        while(true){
+            if(calling){
+                if(call == RESUME_CONDITIONAL){
+                    depth = push(depth, RESUME_CONDITIONAL, null, null);
+                    minimum = EQUALITY;
+                }
+                TokenType type = tokens.peekType();
+                if(PREFIX[type.ordinal()] || type == TokenType.LEFT_PAREN){
+                    depth = push(depth, RESUME_BINARY | minimum << 3, null, null);
+                    //unary(): each prefix operator waits for its operand.
+                    while(PREFIX[tokens.peekType().ordinal()]){
+                        advance();
+                        depth = push(depth, RESUME_UNARY, previous(), null);
+                    }
+                    if(tokens.peekType() == TokenType.LEFT_PAREN){
+                        advance();
+                        depth = push(depth, RESUME_GROUPING, null, null);
+                        call = RESUME_CONDITIONAL;
+                        continue;
+                    }
+                    result = primary();
+                    calling = false;
+                } else {
+                    //Most operands are a literal alone, so binary() only gets a frame if an operator follows one.
+                    result = primary();
+                    int precedence = result == null ? NONE : PRECEDENCE[tokens.peekType().ordinal()];
+                    if(precedence == NONE || precedence < minimum){
+                        calling = false;
+                    } else {
+                        advance();
+                        Token operator = previous();
+                        depth = push(depth, RESUME_BINARY_RIGHT | minimum << 3, result, operator);
+                        minimum = precedence + 1;
+                        call = RESUME_BINARY;
+                        continue;
+                    }
+                }
+            }
+
+            if(depth == 0){
+                return result;
+            }
+            int frame = --depth;    //Popped; a frame that calls again pushes itself back.
+            Object first = held[2 * frame], second = held[2 * frame + 1];
+            held[2 * frame] = held[2 * frame + 1] = null;
+            switch(frames[frame] & 7){
+                case RESUME_CONDITIONAL:
+                    if(result != null && match(TokenType.QUESTION)){
+                        depth = push(depth, RESUME_CENTER, result, null);
+                        calling = true;
+                        call = RESUME_BINARY;
+                        minimum = EQUALITY;
+                    }
+                    break;
+                case RESUME_CENTER:
+                    if(result == null || !consume(TokenType.COLON, CompileError.Error.UnterminatedTernary)){
+                        result = null;
+                    } else {
+                        depth = push(depth, RESUME_RIGHT, first, result);
+                        calling = true;
+                        call = RESUME_BINARY;
+                        minimum = EQUALITY;
+                    }
+                    break;
+                case RESUME_RIGHT:
+                    if(result != null){
+                        result = nodes.ternary(Expression.Ternary.Type.CONDITIONAL, (Expression) first,
+                                (Expression) second, result);
+                    }
+                    break;
+                case RESUME_BINARY_RIGHT:
+                case RESUME_BINARY:
+                    if(result == null){
+                        break;
+                    }
+                    if((frames[frame] & 7) == RESUME_BINARY_RIGHT){
+                        //Back in binary()'s loop with the new left operand.
+                        result = nodes.binary((Expression) first, (Token) second, result);
+                    }
+                    int frameMinimum = frames[frame] >>> 3;
+                    int precedence = PRECEDENCE[tokens.peekType().ordinal()];
+                    if(precedence == NONE || precedence < frameMinimum){
+                        break;
+                    }
+                    advance();
+                    Token operator = previous();
+                    depth = push(depth, RESUME_BINARY_RIGHT | frameMinimum << 3, result, operator);
+                    calling = true;
+                    call = RESUME_BINARY;
+                    minimum = precedence + 1;
+                    break;
+                case RESUME_UNARY:
+                    if(result != null){
+                        result = nodes.unary((Token) first, result);
+                    }
+                    break;
+                case RESUME_GROUPING:
+                    if(result == null || !consume(TokenType.RIGHT_PAREN, CompileError.Error.OpenLeftParen)){
+                        result = null;
+                    } else {
+                        result = nodes.grouping(result);
+                    }
+                    break;
+            }
         }
+    }
 
-        throw error(true, peek(), CompileError.Error.ExpectedExpression);
+    /**
+     * Pushes a frame for parseStackSafe(), growing the stack if it is full.
+     * @return The new depth.
+     */
+    private int push(int depth, int frame, Object first, Object second){
+        if(depth == frames.length){
+            frames = Arrays.copyOf(frames, depth * 2);
+            held = Arrays.copyOf(held, depth * 4);
+        }
+        frames[depth] = frame;
+        held[2 * depth] = first;
+        held[2 * depth + 1] = second;
+        return depth + 1;
     }
 
-    private Token consume(TokenType type, CompileError.Error error){
+    /**
+     * Steps over a token of the given type, or reports an error if the next token is something else.
+     * @return true if the token was there.
+     */
+    private boolean consume(TokenType type, CompileError.Error error){
         if(check(type)){
-            return advance();
+            advance();
+            return true;
         }
 
-        throw error(true, peek(), error);
+        error(peek(), error);
+        return false;
     }
 
-    private ParseError error(boolean fatal, Token token, CompileError.Error error){
+    private void error(Token token, CompileError.Error error){
+        errors++;
         int line = token.line;
-        int pos = token.pos;
-        String[] details = {token.originalLine};
-        CompileError.enqueue(error, line, tokens.get(current).pos, details, fatal); //TODO: pass actual code line
-        return new ParseError();
+        Object[] details = {token.originalLine()};
+        CompileError.enqueue(error, line, tokens.peek().pos, details, fatalErrors); //TODO: pass actual code line
     }
 
+    /**
+     * Skips tokens until the start of the next statement: just after a semicolon, or at a statement keyword.
+     * Always skips at least one token, so parsing cannot get stuck on the token that caused an error.
+     */
     private void synchronize(){
         advance();
 
         while(!isAtEnd()){
-            if(previous().type == TokenType.SEMICOLON){
+            if(tokens.previousType() == TokenType.SEMICOLON){
                 return;
             }
 
-            switch (peek().type){
+            switch (tokens.peekType()){
                 case CLASS:
                 case FUNCTION:
                 case VAR:
@@ -185,12 +477,10 @@ public class Parser {
         }
     }
 
-    private boolean match(TokenType... types){
-        for(TokenType type: types){
-            if(check(type)){
-                advance();
-                return true;
-            }
+    private boolean match(TokenType type){
+        if(check(type)){
+            advance();
+            return true;
         }
 
         return false;
@@ -200,25 +490,24 @@ public class Parser {
         if(isAtEnd()){
             return false;
         }
-        return peek().type == type;
+        return tokens.peekType() == type;
     }
 
-    private Token advance(){
+    private void advance(){
         if(!isAtEnd()){
-            current++;
+            tokens.advance();
         }
-        return previous();
     }
 
     private boolean isAtEnd(){
-        return peek().type == TokenType.EOF;
+        return tokens.peekType() == TokenType.EOF;
     }
 
     private Token peek(){
-        return tokens.get(current);
+        return tokens.peek();
     }
 
     private Token previous(){
-        return tokens.get(current - 1);
+        return tokens.previous();
     }
 }
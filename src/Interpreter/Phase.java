@@ -1,21 +1,256 @@
 package Interpreter;
 
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Locale;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Tells the user which phase the compilation on this thread is in. The phase is kept in its CompilationContext.
+ *
+ * When the context measures phases (-r), or Flight Recorder is running, each phase also records its wall time and
+ * the CPU time and bytes allocated by the compiling thread, plus counts of what it went through. Every finished
+ * phase is kept in the context for the report, and committed as an Interpreter.Phase event if Flight Recorder
+ * wants it. Otherwise nothing is measured: loading the management and JFR classes alone costs more than
+ * compiling a small file.
+ */
 public class Phase {
 
-    private static String phaseName;
+    /**
+     * What a phase can count.
+     */
+    enum Item {
+        CHARACTERS, TOKENS, NODES, EXPRESSIONS
+    }
+
+    //Flight Recorder is left alone if the JVM was built without it.
+    private static final boolean JFR = ModuleLayer.boot().findModule("jdk.jfr").isPresent();
+
+    final String id;        //For the report, e.g. "parse".
+    final String name;      //As shown to the user, in the context's locale.
+    private final boolean measured;
+    private final PhaseEvent event;
+    private final long startWall, startCpu, startAllocated;
+
+    long wallNanos, cpuNanos, allocatedBytes;   //-1 if not measured.
+    final long[] items = {-1, -1, -1, -1};      //By Item, -1 if the phase did not count it.
+
+    private Phase(String id, String name, boolean measured, String file){
+        this.id = id;
+        this.name = name;
+        this.measured = measured;
+        if(measured){
+            startAllocated = Threads.allocated();
+            startCpu = Threads.cpu();
+            event = JFR && jdk.jfr.FlightRecorder.isInitialized() ? new PhaseEvent(id, file) : null;
+            if(event != null){
+                event.begin();
+            }
+            startWall = System.nanoTime();
+        } else {
+            startAllocated = startCpu = startWall = 0;
+            event = null;
+        }
+    }
 
     /**
      * Called whenever a compiler phase is finished, to alert the user.
-     * Maybe will have other things added to it later.
      * @param newPhase The name of the new phase. If there are no more phases, should be null.
      */
     public static void changePhase(String newPhase){
-        if(phaseName != null){
-            System.out.println(phaseName + " complete!");
+        changePhase(newPhase, newPhase);
+    }
+
+    /**
+     * Finishes the current phase, if any, and starts another.
+     * @param id What the new phase is called in the report: read, parse, optimize or evaluate.
+     * @param newPhase The name of the new phase, shown to the user. If there are no more phases, should be null.
+     */
+    public static void changePhase(String id, String newPhase){
+        CompilationContext context = CompilationContext.current();
+        if(context.phase != null){
+            context.phase.finish();
+            context.phases.add(context.phase);
+            context.out.println(context.phase.name + " complete!");
+            context.phase = null;
         }
         if(newPhase != null) {
-            phaseName = newPhase;
-            System.out.println(phaseName + "...");
+            context.out.println(newPhase + "...");
+            boolean measured = context.measurePhases || JFR && jdk.jfr.FlightRecorder.isInitialized();
+            context.phase = new Phase(id, newPhase, measured, context.fileName);
+        }
+    }
+
+    /**
+     * Finishes the phase in progress without telling the user, for a compilation stopped by a fatal error.
+     * The phase is kept, so the report shows how far the compilation got.
+     */
+    static void abandon(CompilationContext context){
+        if(context.phase != null){
+            context.phase.finish();
+            context.phases.add(context.phase);
+            context.phase = null;
+        }
+    }
+
+    /**
+     * @return true if the current phase is measured, so its counts are worth working out.
+     */
+    static boolean measuring(){
+        Phase phase = CompilationContext.current().phase;
+        return phase != null && phase.measured;
+    }
+
+    /**
+     * Records how many of something the current phase went through.
+     */
+    static void count(Item item, long count){
+        Phase phase = CompilationContext.current().phase;
+        if(phase != null){
+            phase.items[item.ordinal()] = count;
+        }
+    }
+
+    private void finish(){
+        if(!measured){
+            wallNanos = cpuNanos = allocatedBytes = -1;
+            return;
+        }
+        wallNanos = System.nanoTime() - startWall;
+        cpuNanos = startCpu < 0 ? -1 : Threads.cpu() - startCpu;
+        allocatedBytes = startAllocated < 0 ? -1 : Threads.allocated() - startAllocated;
+        if(event != null){
+            event.end();
+            if(event.shouldCommit()){
+                event.cpuTime = cpuNanos;
+                event.allocated = allocatedBytes;
+                event.characters = Math.max(items[Item.CHARACTERS.ordinal()], 0);
+                event.tokens = Math.max(items[Item.TOKENS.ordinal()], 0);
+                event.nodes = Math.max(items[Item.NODES.ordinal()], 0);
+                event.expressions = Math.max(items[Item.EXPRESSIONS.ordinal()], 0);
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Writes the phases of one or more compilations as JSON:
+     * {"files": [{"file": ..., "exitCode": ..., "phases": [{"phase": "parse", "wallNanos": ..., ...}, ...]}, ...]}
+     * Measurements a phase does not have are left out.
+     * @param out Where to write.
+     * @param files The path of each file.
+     * @param exitCodes What each compilation ended with.
+     * @param phases The finished phases of each compilation.
+     */
+    static void writeReport(StringBuilder out, List<String> files, List<Integer> exitCodes, List<List<Phase>> phases){
+        out.append("{\"files\": [");
+        for(int i = 0; i < files.size(); i++){
+            out.append(i == 0 ? "\n" : ",\n");
+            out.append("  {\"file\": ");
+            appendString(out, files.get(i));
+            out.append(", \"exitCode\": ").append(exitCodes.get(i)).append(", \"phases\": [");
+            List<Phase> filePhases = phases.get(i);
+            for(int j = 0; j < filePhases.size(); j++){
+                Phase phase = filePhases.get(j);
+                out.append(j == 0 ? "\n" : ",\n");
+                out.append("    {\"phase\": ");
+                appendString(out, phase.id);
+                out.append(", \"name\": ");
+                appendString(out, phase.name);
+                appendNumber(out, "wallNanos", phase.wallNanos);
+                appendNumber(out, "cpuNanos", phase.cpuNanos);
+                appendNumber(out, "allocatedBytes", phase.allocatedBytes);
+                for(Item item: Item.values()){
+                    appendNumber(out, item.name().toLowerCase(Locale.ROOT), phase.items[item.ordinal()]);
+                }
+                out.append("}");
+            }
+            out.append(filePhases.isEmpty() ? "]}" : "\n  ]}");
+        }
+        out.append(files.isEmpty() ? "]}\n" : "\n]}\n");
+    }
+
+    private static void appendNumber(StringBuilder out, String key, long value){
+        if(value >= 0){
+            out.append(", \"").append(key).append("\": ").append(value);
+        }
+    }
+
+    private static void appendString(StringBuilder out, String value){
+        out.append('"');
+        for(int i = 0; i < value.length(); i++){
+            char c = value.charAt(i);
+            if(c == '"' || c == '\\'){
+                out.append('\\').append(c);
+            } else if(c < ' '){
+                out.append(String.format("\\u%04x", (int) c));
+            } else {
+                out.append(c);
+            }
+        }
+        out.append('"');
+    }
+
+    /**
+     * The compiling thread's CPU time and allocations, loaded only once a phase is measured.
+     */
+    private static final class Threads {
+        private static final java.lang.management.ThreadMXBean BEAN = ManagementFactory.getThreadMXBean();
+        private static final boolean CPU = BEAN.isCurrentThreadCpuTimeSupported();
+        private static final boolean ALLOCATED = BEAN instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) BEAN).isThreadAllocatedMemorySupported();
+
+        static long cpu(){
+            return CPU ? BEAN.getCurrentThreadCpuTime() : -1;
+        }
+
+        static long allocated(){
+            return ALLOCATED ? ((com.sun.management.ThreadMXBean) BEAN).getCurrentThreadAllocatedBytes() : -1;
+        }
+    }
+
+    /**
+     * A finished phase, for Flight Recorder. Its duration is the phase's wall time.
+     */
+    @Name("Interpreter.Phase")
+    @Label("Compiler Phase")
+    @Category("Interpreter")
+    @Description("One phase of compiling a file")
+    static class PhaseEvent extends jdk.jfr.Event {
+        @Label("Phase")
+        String phase;
+
+        @Label("File")
+        String file;
+
+        @Label("CPU Time")
+        @Timespan
+        long cpuTime;
+
+        @Label("Allocated")
+        @DataAmount
+        long allocated;
+
+        @Label("Characters")
+        long characters;
+
+        @Label("Tokens")
+        long tokens;
+
+        @Label("Nodes")
+        long nodes;
+
+        @Label("Expressions")
+        long expressions;
+
+        PhaseEvent(String phase, String file){
+            this.phase = phase;
+            this.file = file;
         }
     }
 }
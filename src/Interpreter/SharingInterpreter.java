@@ -0,0 +1,82 @@
+package Interpreter;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The engine for -p shared. prepare() shares the expression's repeated subexpressions through a hash-consing
+ * ExpressionFactory, and gives each node that then has more than one parent a slot. When a program runs, each of
+ * those nodes is evaluated the first time it is reached and its value kept in its slot for the rest of the run.
+ * This only holds because operators have no side effects: evaluating a subexpression twice gives the same value.
+ */
+class SharingInterpreter extends Interpreter {
+
+    private final ExpressionFactory.HashConsing factory = new ExpressionFactory.HashConsing();
+    //Each interpreter numbers its own slots, as two of them may be given the same nodes.
+    private final Map<Expression, Integer> slots = new IdentityHashMap<>();
+    private Object[] values = new Object[16];
+    //The run each slot's value is from, so nothing needs clearing between runs.
+    private int[] runs = new int[16];
+    private int run = 0;
+
+    @Override
+    public Program prepare(Expression expression){
+        Expression shared = factory.intern(expression);
+        mark(shared, Collections.newSetFromMap(new IdentityHashMap<>()));
+        return () -> {
+            run++;
+            return evaluate(shared);
+        };
+    }
+
+    /**
+     * Programs share the remembered values, so only one may run at a time.
+     */
+    @Override
+    public boolean isThreadSafe(){
+        return false;
+    }
+
+    private void mark(Expression expression, Set<Expression> seen){
+        boolean repeated = !seen.add(expression);
+        if(repeated && !(expression instanceof Expression.Literal) && !slots.containsKey(expression)){
+            int slot = slots.size();
+            slots.put(expression, slot);
+            if(slot == values.length){
+                values = Arrays.copyOf(values, slot * 2);
+                runs = Arrays.copyOf(runs, slot * 2);
+            }
+        }
+        if(repeated){
+            return;
+        }
+        if(expression instanceof Expression.Binary){
+            mark(((Expression.Binary) expression).left, seen);
+            mark(((Expression.Binary) expression).right, seen);
+        } else if(expression instanceof Expression.Unary){
+            mark(((Expression.Unary) expression).right, seen);
+        } else if(expression instanceof Expression.Grouping){
+            mark(((Expression.Grouping) expression).expression, seen);
+        } else if(expression instanceof Expression.Ternary){
+            mark(((Expression.Ternary) expression).left, seen);
+            mark(((Expression.Ternary) expression).center, seen);
+            mark(((Expression.Ternary) expression).right, seen);
+        }
+    }
+
+    @Override
+    public Object evaluate(Expression expression){
+        Integer slot = slots.get(expression);
+        if(slot == null){
+            return expression.accept(this);
+        }
+        if(runs[slot] != run){
+            values[slot] = expression.accept(this);
+            runs[slot] = run;
+        }
+        return values[slot];
+    }
+}
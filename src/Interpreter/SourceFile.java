@@ -0,0 +1,228 @@
+package Interpreter;
+
+import java.util.Arrays;
+
+/**
+ * The text of a source file, held once, with a table of where each line starts.
+ * Tokens and errors keep an offset into it instead of a copy of their line, and a line is only sliced out into a
+ * String when a message is written. The table is built in one pass the first time a line is looked up, so lexing
+ * code without errors never builds it.
+ */
+class SourceFile {
+
+    private final CharSequence text;
+    private volatile int[] lineStarts;  //The offset of each line's first character; see lineStarts().
+    private int lineCount;              //How much of lineStarts is used.
+
+    /**
+     * @param text The source code, either a String or a view over the loaded file.
+     */
+    SourceFile(CharSequence text){
+        this.text = text;
+    }
+
+    CharSequence text(){
+        return text;
+    }
+
+    /**
+     * @return How many lines there are, counting the one after a final newline.
+     */
+    int lineCount(){
+        lineStarts();
+        return lineCount;
+    }
+
+    /**
+     * Finds the line an offset is on, by binary search.
+     * @param offset An index into the text. Offsets past the end are on the last line.
+     * @return The line, from 0.
+     */
+    int lineOf(int offset){
+        int[] starts = lineStarts();
+        int found = Arrays.binarySearch(starts, 0, lineCount, offset);
+        return found >= 0 ? found : -found - 2;
+    }
+
+    /**
+     * @param offset An index into the text.
+     * @return How far the offset is from the start of its line.
+     */
+    int columnOf(int offset){
+        return offset - lineStarts()[lineOf(offset)];
+    }
+
+    /**
+     * Copies a line out of the text.
+     * @param line The line, from 0.
+     * @return The line, without its newline.
+     */
+    String line(int line){
+        int[] starts = lineStarts();
+        int from = starts[line];
+        int to = line + 1 < lineCount ? starts[line + 1] - 1 : text.length();
+        return text.subSequence(from, to).toString();
+    }
+
+    /**
+     * @return The line with the character at an offset on it, as an error detail that is sliced out only when the
+     * message is written.
+     */
+    Line lineAt(int offset){
+        return new Line(this, lineOf(offset));
+    }
+
+    /**
+     * @return The offset of the last character that is not a newline, so that the end of the file can be shown on
+     * the last line with something on it.
+     */
+    int lastTextOffset(){
+        int at = text.length() - 1;
+        while(at > 0 && text.charAt(at) == '\n'){
+            at--;
+        }
+        return Math.max(at, 0);
+    }
+
+    /**
+     * Brings the line table up to date after the text, a StringBuilder, was edited in place.
+     * @param offset Where the edit starts.
+     * @param removed How many characters it removed.
+     * @param inserted The text it inserted in their place.
+     */
+    void edited(int offset, int removed, String inserted){
+        int[] starts = lineStarts;
+        if(starts == null){
+            return;     //Not built yet, so it will be built from the edited text.
+        }
+        //Lines that started inside the removed text are gone, and the ones after it move.
+        int first = lineOf(offset) + 1;
+        int after = first;
+        while(after < lineCount && starts[after] <= offset + removed){
+            after++;
+        }
+        int added = 0;
+        for(int i = 0; i < inserted.length(); i++){
+            if(inserted.charAt(i) == '\n'){
+                added++;
+            }
+        }
+        int newCount = lineCount - (after - first) + added;
+        int[] updated = newCount > starts.length ? Arrays.copyOf(starts, Math.max(newCount, starts.length * 2)) : starts;
+        int delta = inserted.length() - removed;
+        System.arraycopy(starts, after, updated, first + added, lineCount - after);
+        for(int i = first + added; i < newCount; i++){
+            updated[i] += delta;
+        }
+        int line = first;
+        for(int i = 0; i < inserted.length(); i++){
+            if(inserted.charAt(i) == '\n'){
+                updated[line++] = offset + i + 1;
+            }
+        }
+        lineCount = newCount;
+        lineStarts = updated;
+    }
+
+    /**
+     * Builds the line table on first use, in one pass over the text.
+     */
+    private int[] lineStarts(){
+        int[] starts = lineStarts;
+        if(starts == null){
+            starts = new int[Math.max(16, text.length() / 32)];  //Roughly one line per 32 characters.
+            int count = 1;
+            for(int i = 0; i < text.length(); i++){
+                if(text.charAt(i) == '\n'){
+                    if(count == starts.length){
+                        starts = Arrays.copyOf(starts, count * 2);
+                    }
+                    starts[count++] = i + 1;
+                }
+            }
+            lineCount = count;
+            lineStarts = starts;
+        }
+        return starts;
+    }
+
+    /**
+     * One line of a source file, which only becomes text when it is written.
+     * Two are equal if they are the same line of the same file, so that repeated errors on it are still repeats.
+     */
+    static final class Line {
+        private final SourceFile source;
+        private final int line;
+
+        Line(SourceFile source, int line){
+            this.source = source;
+            this.line = line;
+        }
+
+        /**
+         * @return The line this many lines further down, for an error that has moved with its code.
+         */
+        Line movedBy(int lines){
+            return new Line(source, line + lines);
+        }
+
+        @Override
+        public boolean equals(Object other){
+            return other instanceof Line && ((Line) other).source == source && ((Line) other).line == line;
+        }
+
+        @Override
+        public int hashCode(){
+            return System.identityHashCode(source) * 31 + line;
+        }
+
+        @Override
+        public String toString(){
+            return source.line(line);
+        }
+    }
+
+    /**
+     * Some lines of a source file, each written after a tab on a line of its own, only when they are written.
+     */
+    static final class Lines {
+        private final SourceFile source;
+        private final int[] lines;
+
+        Lines(SourceFile source, int[] lines){
+            this.source = source;
+            this.lines = lines;
+        }
+
+        /**
+         * @return The lines this many lines further down, for an error that has moved with its code.
+         */
+        Lines movedBy(int lines){
+            int[] moved = this.lines.clone();
+            for(int i = 0; i < moved.length; i++){
+                moved[i] += lines;
+            }
+            return new Lines(source, moved);
+        }
+
+        @Override
+        public boolean equals(Object other){
+            return other instanceof Lines && ((Lines) other).source == source
+                    && Arrays.equals(((Lines) other).lines, lines);
+        }
+
+        @Override
+        public int hashCode(){
+            return System.identityHashCode(source) * 31 + Arrays.hashCode(lines);
+        }
+
+        @Override
+        public String toString(){
+            StringBuilder text = new StringBuilder();
+            for(int line: lines){
+                text.append('\t').append(source.line(line)).append('\n');
+            }
+            return text.toString();
+        }
+    }
+}
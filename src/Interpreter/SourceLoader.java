@@ -0,0 +1,131 @@
+package Interpreter;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+public class SourceLoader {
+
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    /**
+     * Loads a source file by memory-mapping it, without building the contents up line by line.
+     * Pure ASCII files (the common case for generated scripts) are not decoded at all: the Lexer reads
+     * the mapped bytes directly. Anything else is decoded as UTF-8 in a single pass.
+     * @param fileName The path of the file to load.
+     * @return The contents of the file.
+     * @throws FileNotFoundException if the file does not exist.
+     * @throws IOException if the file cannot be read or is too large to address.
+     */
+    public static CharSequence load(String fileName) throws IOException {
+        Path path = Paths.get(fileName);
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)){
+            long size = channel.size();
+            if(size > Integer.MAX_VALUE){
+                throw new IOException(fileName + " is larger than 2 GB and cannot be loaded.");
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            //The mapping stays valid after the channel is closed.
+            return decode(mapped);
+        } catch (NoSuchFileException e){
+            throw new FileNotFoundException(fileName);
+        }
+    }
+
+    /**
+     * Chooses the cheapest representation for a buffer of source bytes.
+     * @param bytes The raw source bytes.
+     * @return An AsciiSource over the bytes if they are all ASCII, otherwise the UTF-8 decoded characters.
+     * @throws CharacterCodingException never, malformed input is replaced rather than reported.
+     */
+    static CharSequence decode(ByteBuffer bytes) throws CharacterCodingException {
+        if(isAscii(bytes)){
+            return new AsciiSource(bytes);
+        }
+        CharBuffer chars = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE)
+                .decode(bytes.duplicate());
+        return chars;
+    }
+
+    /**
+     * Checks eight bytes at a time whether any byte has its high bit set.
+     * @param bytes The buffer to check. Its position is not changed.
+     * @return true if every byte is below 0x80.
+     */
+    static boolean isAscii(ByteBuffer bytes){
+        int limit = bytes.limit();
+        int i = bytes.position();
+        for(; i + 8 <= limit; i += 8){
+            if((bytes.getLong(i) & HIGH_BITS) != 0){
+                return false;
+            }
+        }
+        for(; i < limit; i++){
+            if(bytes.get(i) < 0){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A read-only view of ASCII bytes as characters. No bytes are copied until a subsequence
+     * is turned into a String.
+     */
+    static class AsciiSource implements CharSequence {
+
+        private final ByteBuffer bytes;
+        private final int offset;
+        private final int length;
+
+        AsciiSource(ByteBuffer bytes){
+            this(bytes, bytes.position(), bytes.remaining());
+        }
+
+        private AsciiSource(ByteBuffer bytes, int offset, int length){
+            this.bytes = bytes;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public int length(){
+            return length;
+        }
+
+        @Override
+        public char charAt(int index){
+            if(index < 0 || index >= length){
+                throw new IndexOutOfBoundsException(index);
+            }
+            return (char) bytes.get(offset + index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end){
+            if(start < 0 || end > length || start > end){
+                throw new IndexOutOfBoundsException(start + ".." + end);
+            }
+            return new AsciiSource(bytes, offset + start, end - start);
+        }
+
+        @Override
+        public String toString(){
+            byte[] copy = new byte[length];
+            bytes.get(offset, copy);
+            return new String(copy, StandardCharsets.ISO_8859_1);
+        }
+    }
+}
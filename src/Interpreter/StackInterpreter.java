@@ -0,0 +1,146 @@
+package Interpreter;
+
+import java.util.Arrays;
+
+/**
+ * A tree-walking engine whose nesting depth is limited only by memory, picked by -s. It recurses like Interpreter
+ * down to RECURSION_LIMIT, since that is faster, and evaluates anything deeper without recursing: nodes wait on a
+ * stack of work with how far along they are, and their operands' values wait on a stack of values.
+ * It evaluates the same nodes in the same order as Interpreter: a ternary only evaluates the branch it picks.
+ */
+class StackInterpreter implements Engine {
+
+    private static final int RECURSION_LIMIT = 256;
+
+    private final int recursionLimit;
+
+    StackInterpreter(){
+        this(RECURSION_LIMIT);
+    }
+
+    /**
+     * @param recursionLimit How deep to recurse before using the stacks; 0 to use them for everything.
+     */
+    StackInterpreter(int recursionLimit){
+        this.recursionLimit = recursionLimit;
+    }
+
+    @Override
+    public Program prepare(Expression expression){
+        return () -> evaluate(expression, 0);
+    }
+
+    private Object evaluate(Expression expression, int depth){
+        if(depth >= recursionLimit){
+            return new Run().evaluate(expression);
+        }
+        if(expression instanceof Expression.Binary){
+            Expression.Binary binary = (Expression.Binary) expression;
+            Object left = evaluate(binary.left, depth + 1);
+            Object right = evaluate(binary.right, depth + 1);
+            return Operators.binary(binary.operator.type, left, right);
+        } else if(expression instanceof Expression.Literal){
+            return ((Expression.Literal) expression).value;
+        } else if(expression instanceof Expression.Grouping){
+            return evaluate(((Expression.Grouping) expression).expression, depth + 1);
+        } else if(expression instanceof Expression.Unary){
+            Expression.Unary unary = (Expression.Unary) expression;
+            return Operators.unary(unary.operator.type, evaluate(unary.right, depth + 1));
+        } else if(expression instanceof Expression.Ternary){
+            Expression.Ternary ternary = (Expression.Ternary) expression;
+            boolean condition = Operators.isTruthy(evaluate(ternary.left, depth + 1));
+            return evaluate(condition ? ternary.center : ternary.right, depth + 1);
+        }
+        throw new IllegalArgumentException("Unknown expression " + expression.getClass().getSimpleName());
+    }
+
+    /**
+     * The stacks for one evaluation, so that programs can run on different threads at once.
+     */
+    private static final class Run {
+        private Expression[] work = new Expression[32];
+        private int[] steps = new int[32];      //How many of each node's operands have been evaluated.
+        private int depth;
+        private Object[] values = new Object[32];
+        private int count;
+
+        Object evaluate(Expression root){
+            push(root);
+            while(depth > 0){
+                int top = depth - 1;
+                Expression expression = work[top];
+                if(expression instanceof Expression.Literal){
+                    pop();
+                    value(((Expression.Literal) expression).value);
+                } else if(expression instanceof Expression.Binary){
+                    Expression.Binary binary = (Expression.Binary) expression;
+                    switch(steps[top]++){
+                        case 0:
+                            push(binary.left);
+                            break;
+                        case 1:
+                            push(binary.right);
+                            break;
+                        default:
+                            pop();
+                            Object right = values[--count];
+                            values[count - 1] = Operators.binary(binary.operator.type, values[count - 1], right);
+                            values[count] = null;
+                    }
+                } else if(expression instanceof Expression.Unary){
+                    Expression.Unary unary = (Expression.Unary) expression;
+                    if(steps[top]++ == 0){
+                        push(unary.right);
+                    } else {
+                        pop();
+                        values[count - 1] = Operators.unary(unary.operator.type, values[count - 1]);
+                    }
+                } else if(expression instanceof Expression.Grouping){
+                    if(steps[top]++ == 0){
+                        push(((Expression.Grouping) expression).expression);
+                    } else {
+                        pop();      //The value is the inner expression's.
+                    }
+                } else if(expression instanceof Expression.Ternary){
+                    Expression.Ternary ternary = (Expression.Ternary) expression;
+                    switch(steps[top]++){
+                        case 0:
+                            push(ternary.left);
+                            break;
+                        case 1:
+                            Object condition = values[--count];
+                            values[count] = null;
+                            push(Operators.isTruthy(condition) ? ternary.center : ternary.right);
+                            break;
+                        default:
+                            pop();  //The value is the branch's.
+                    }
+                } else {
+                    throw new IllegalArgumentException("Unknown expression " + expression.getClass().getSimpleName());
+                }
+            }
+            return values[0];
+        }
+
+        private void push(Expression expression){
+            if(depth == work.length){
+                work = Arrays.copyOf(work, depth * 2);
+                steps = Arrays.copyOf(steps, depth * 2);
+            }
+            work[depth] = expression;
+            steps[depth] = 0;
+            depth++;
+        }
+
+        private void pop(){
+            work[--depth] = null;
+        }
+
+        private void value(Object value){
+            if(count == values.length){
+                values = Arrays.copyOf(values, count * 2);
+            }
+            values[count++] = value;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package Interpreter;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A window over a TokenStream that keeps only the last consumed token and a small amount of lookahead,
+ * in a fixed size ring buffer. Tokens are pulled from the stream only when they are looked at, so
+ * parsing uses the same amount of token memory no matter how large the source is.
+ */
+class StreamTokenCursor implements TokenCursor {
+
+    private final TokenStream source;
+    private final Token[] ring;
+    private final int mask;
+
+    private long current = 0;  //Index of the next token to be consumed.
+    private long filled = 0;   //Number of tokens pulled from the source so far.
+    private boolean ended = false;
+
+    /**
+     * @param source Where the tokens come from.
+     * @param lookahead How many tokens past the current one can be peeked at.
+     */
+    StreamTokenCursor(TokenStream source, int lookahead){
+        this.source = source;
+        //Room for the previous token, the current one, and the lookahead.
+        int capacity = Integer.highestOneBit(lookahead + 2) << 1;
+        ring = new Token[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * A cursor over tokens that have already been lexed into a list. The list must end with an EOF token.
+     * @param tokens The lexed tokens.
+     */
+    StreamTokenCursor(List<Token> tokens){
+        this(iterate(tokens.iterator()), 1);
+    }
+
+    private static TokenStream iterate(Iterator<Token> tokens){
+        return tokens::next;
+    }
+
+    @Override
+    public Lexer.TokenType peekType(){
+        return peek(0).type;
+    }
+
+    @Override
+    public Lexer.TokenType previousType(){
+        return previous().type;
+    }
+
+    @Override
+    public Object previousLiteral(){
+        return previous().literal;
+    }
+
+    @Override
+    public Token peek(){
+        return peek(0);
+    }
+
+    /**
+     * Looks n tokens past the current one. Looking past the end gives the EOF token.
+     * @param n How far to look ahead. Must be no more than the lookahead the cursor was made with.
+     * @return The token n places after the current one.
+     */
+    Token peek(int n){
+        long index = current + n;
+        while(filled <= index && !ended){
+            Token token = source.nextToken();
+            ring[(int) (filled & mask)] = token;
+            filled++;
+            ended = token.type == Lexer.TokenType.EOF;
+        }
+        if(index >= filled){
+            index = filled - 1;
+        }
+        return ring[(int) (index & mask)];
+    }
+
+    @Override
+    public Token previous(){
+        return ring[(int) ((current - 1) & mask)];
+    }
+
+    @Override
+    public void advance(){
+        peek(0);
+        current++;
+    }
+}
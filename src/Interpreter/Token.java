@@ -6,15 +6,25 @@ public class Token {
     public final Object literal;
     public final int line;
     public final int pos;
-    public final String originalLine;
+    final SourceFile source;
+    final int start;    //The index of the token's first character in the source.
 
-    Token(Lexer.TokenType type, String lexeme, Object literal, int line, int pos, String originalLine){
+    Token(Lexer.TokenType type, String lexeme, Object literal, int line, int pos, SourceFile source, int start){
         this.type = type;
         this.lexeme = lexeme;
         this.literal = literal;
         this.line = line;
         this.pos = pos;
-        this.originalLine = originalLine;
+        this.source = source;
+        this.start = start;
+    }
+
+    /**
+     * @return The line of code the token is on, for error messages. The end of the file is shown on the last line
+     * with something on it.
+     */
+    SourceFile.Line originalLine(){
+        return source.lineAt(type == Lexer.TokenType.EOF ? source.lastTextOffset() : start);
     }
 
     public String toString(){
@@ -0,0 +1,291 @@
+package Interpreter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Every token of a source file, stored column by column in parallel arrays instead of as Token objects.
+ * A token is just an index. Its lexeme and source line are not copied out of the source code until asked for,
+ * and literals are kept in a side table so that tokens without one cost nothing extra.
+ */
+class TokenBuffer {
+
+    private static final Lexer.TokenType[] TYPES = Lexer.TokenType.values();
+    private static final int NO_LITERAL = -1;
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final SourceFile source;
+    private final CharSequence code;
+
+    private int[] types;
+    private int[] starts;
+    private int[] lengths;
+    private int[] lines;
+    private int[] positions;
+    private int[] literalSlots;
+    private final List<Object> literals = new ArrayList<>();
+    private int[] freeSlots = new int[0];   //Slots in literals that replace() emptied, for the next one to reuse.
+    private int freeCount = 0;
+    private int size = 0;
+
+    /**
+     * @param source The source code the tokens were lexed from.
+     */
+    TokenBuffer(SourceFile source){
+        //Doubling from a small start wastes at most half, where guessing from the length over-allocates for comments.
+        this(source, INITIAL_CAPACITY);
+    }
+
+    /**
+     * @param source The source code the tokens were lexed from.
+     * @param capacity How many tokens to make room for up front.
+     */
+    TokenBuffer(SourceFile source, int capacity){
+        this.source = source;
+        this.code = source.text();
+        capacity = Math.max(16, capacity);
+        types = new int[capacity];
+        starts = new int[capacity];
+        lengths = new int[capacity];
+        lines = new int[capacity];
+        positions = new int[capacity];
+        literalSlots = new int[capacity];
+    }
+
+    /**
+     * Appends a token.
+     * @param type The type of the token.
+     * @param start The index of its first character in the source code.
+     * @param length How many characters it spans.
+     * @param line The line it is on.
+     * @param pos The character position within the line.
+     * @param literal Its literal value, or null if it has none.
+     */
+    void add(Lexer.TokenType type, int start, int length, int line, int pos, Object literal){
+        if(size == types.length){
+            grow();
+        }
+        types[size] = type.ordinal();
+        starts[size] = start;
+        lengths[size] = length;
+        lines[size] = line;
+        positions[size] = pos;
+        //An identifier's literal is its own name, which can be sliced from the code again when needed.
+        if(literal == null || type == Lexer.TokenType.IDENTIFIER){
+            literalSlots[size] = NO_LITERAL;
+        } else {
+            literalSlots[size] = literals.size();
+            literals.add(literal);
+        }
+        size++;
+    }
+
+    private void grow(){
+        grow(types.length * 2);
+    }
+
+    private void grow(int capacity){
+        types = Arrays.copyOf(types, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+        lengths = Arrays.copyOf(lengths, capacity);
+        lines = Arrays.copyOf(lines, capacity);
+        positions = Arrays.copyOf(positions, capacity);
+        literalSlots = Arrays.copyOf(literalSlots, capacity);
+    }
+
+    int size(){
+        return size;
+    }
+
+    Lexer.TokenType type(int index){
+        return TYPES[types[index]];
+    }
+
+    Object literal(int index){
+        if(types[index] == Lexer.TokenType.IDENTIFIER.ordinal()){
+            return lexeme(index);
+        }
+        int slot = literalSlots[index];
+        return slot == NO_LITERAL ? null : literals.get(slot);
+    }
+
+    int line(int index){
+        return lines[index];
+    }
+
+    int pos(int index){
+        return positions[index];
+    }
+
+    /**
+     * @return The index of the token's first character in the source code.
+     */
+    int start(int index){
+        return starts[index];
+    }
+
+    /**
+     * @return The index after the token's last character in the source code.
+     */
+    int end(int index){
+        return starts[index] + lengths[index];
+    }
+
+    /**
+     * Copies a token's text out of the source code.
+     * @param index The token.
+     * @return The lexeme.
+     */
+    String lexeme(int index){
+        return code.subSequence(starts[index], starts[index] + lengths[index]).toString();
+    }
+
+    /**
+     * Replaces a range of tokens with every token from another buffer, for re-lexing after an edit.
+     * @param from The first token to replace.
+     * @param to The token after the last one to replace.
+     * @param replacement The new tokens, lexed from the same code as this buffer.
+     */
+    void replace(int from, int to, TokenBuffer replacement){
+        //The replaced tokens' literals are dropped, and their slots reused, so edits never grow the side table.
+        for(int i = from; i < to; i++){
+            int slot = literalSlots[i];
+            if(slot != NO_LITERAL){
+                literals.set(slot, null);
+                if(freeCount == freeSlots.length){
+                    freeSlots = Arrays.copyOf(freeSlots, Math.max(16, freeCount * 2));
+                }
+                freeSlots[freeCount++] = slot;
+            }
+        }
+
+        int added = replacement.size;
+        int newSize = size - (to - from) + added;
+        if(newSize > types.length){
+            grow(Math.max(newSize, types.length * 2));
+        }
+        int tail = size - to;
+        System.arraycopy(types, to, types, from + added, tail);
+        System.arraycopy(starts, to, starts, from + added, tail);
+        System.arraycopy(lengths, to, lengths, from + added, tail);
+        System.arraycopy(lines, to, lines, from + added, tail);
+        System.arraycopy(positions, to, positions, from + added, tail);
+        System.arraycopy(literalSlots, to, literalSlots, from + added, tail);
+
+        System.arraycopy(replacement.types, 0, types, from, added);
+        System.arraycopy(replacement.starts, 0, starts, from, added);
+        System.arraycopy(replacement.lengths, 0, lengths, from, added);
+        System.arraycopy(replacement.lines, 0, lines, from, added);
+        System.arraycopy(replacement.positions, 0, positions, from, added);
+        for(int i = 0; i < added; i++){
+            int slot = replacement.literalSlots[i];
+            if(slot == NO_LITERAL){
+                literalSlots[from + i] = NO_LITERAL;
+            } else if(freeCount > 0){
+                literalSlots[from + i] = freeSlots[--freeCount];
+                literals.set(freeSlots[freeCount], replacement.literals.get(slot));
+            } else {
+                literalSlots[from + i] = literals.size();
+                literals.add(replacement.literals.get(slot));
+            }
+        }
+        size = newSize;
+    }
+
+    /**
+     * @return How many slots the literal side table has, in use or free.
+     */
+    int literalSlots(){
+        return literals.size();
+    }
+
+    /**
+     * Moves tokens to where they are after an edit that did not change them.
+     * @param from The first token to move. All tokens after it move too.
+     * @param offsetDelta How far the tokens moved in the code.
+     * @param lineDelta How many lines the tokens moved down.
+     * @param line The line, before the move, whose tokens also moved sideways.
+     * @param posDelta How far the tokens on that line moved sideways.
+     */
+    void shift(int from, int offsetDelta, int lineDelta, int line, int posDelta){
+        int eof = Lexer.TokenType.EOF.ordinal();
+        for(int i = from; i < size; i++){
+            if(lines[i] == line && types[i] != eof){    //EOF is always at position 0, as the Lexer adds it.
+                positions[i] += posDelta;
+            }
+            starts[i] += offsetDelta;
+            lines[i] += lineDelta;
+        }
+    }
+
+    /**
+     * Builds a Token object for one token, for code that needs to hold on to it.
+     * @param index The token.
+     * @return A new Token with the same contents.
+     */
+    Token token(int index){
+        return new Token(type(index), lexeme(index), literal(index), lines[index], positions[index], source,
+                starts[index]);
+    }
+
+    /**
+     * @return A cursor for the Parser, positioned at the first token.
+     */
+    TokenCursor cursor(){
+        return new Cursor(0, size - 1);
+    }
+
+    /**
+     * A cursor over some of the tokens, which sees an EOF token where the range ends.
+     * @param from The first token.
+     * @param to The token after the last one; it is treated as EOF.
+     * @return A cursor for the Parser, positioned at the first token.
+     */
+    TokenCursor cursor(int from, int to){
+        return new Cursor(from, to);
+    }
+
+    private class Cursor implements TokenCursor {
+
+        private int current;
+        private final int end;
+
+        Cursor(int from, int to){
+            current = from;
+            end = to;
+        }
+
+        @Override
+        public Lexer.TokenType peekType(){
+            return current >= end ? Lexer.TokenType.EOF : type(current);
+        }
+
+        @Override
+        public Lexer.TokenType previousType(){
+            return type(current - 1);
+        }
+
+        @Override
+        public Object previousLiteral(){
+            return literal(current - 1);
+        }
+
+        @Override
+        public Token peek(){
+            return token(current);
+        }
+
+        @Override
+        public Token previous(){
+            return token(current - 1);
+        }
+
+        @Override
+        public void advance(){
+            if(current < end){
+                current++;
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package Interpreter;
+
+/**
+ * The Parser's view of the tokens: the current one, which can be looked at without consuming it,
+ * and the one consumed just before it.
+ * The type and literal can be read without a Token object, which lets a cursor over a TokenBuffer
+ * avoid creating Tokens for everything but the operators that end up in the syntax tree.
+ */
+interface TokenCursor {
+
+    /**
+     * @return The type of the current token.
+     */
+    Lexer.TokenType peekType();
+
+    /**
+     * @return The type of the most recently consumed token.
+     */
+    Lexer.TokenType previousType();
+
+    /**
+     * @return The literal value of the most recently consumed token, or null if it has none.
+     */
+    Object previousLiteral();
+
+    /**
+     * @return The current token.
+     */
+    Token peek();
+
+    /**
+     * @return The most recently consumed token.
+     */
+    Token previous();
+
+    /**
+     * Consumes the current token.
+     */
+    void advance();
+}
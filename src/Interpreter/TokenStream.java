@@ -0,0 +1,13 @@
+package Interpreter;
+
+/**
+ * A source of tokens that produces them one at a time, on demand.
+ */
+interface TokenStream {
+
+    /**
+     * Produces the next token. Once the end of the source is reached, keeps returning an EOF token.
+     * @return The next token.
+     */
+    Token nextToken();
+}
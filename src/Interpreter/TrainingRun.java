@@ -0,0 +1,73 @@
+package Interpreter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Compiles made-up files the way Main compiles real ones, and throws away what they print.
+ * The first round goes through every engine, -o, -s, -r, parallel evaluation and error reporting, so that every
+ * class a compilation can load is loaded: run with -t under -XX:ArchiveClassesAtExit, it is the training run for
+ * an AppCDS archive (see bin/lox). Later rounds only compile the way most files are compiled, so that
+ * CompileDaemon can run it until the JIT has compiled the hot paths.
+ */
+final class TrainingRun {
+
+    private static final String[][] FIRST_ROUND = {
+            {"-o"}, {"-s"}, {"-r", "training.json"}, {"-e", "5"},
+            {"-p", "vm"}, {"-p", "unboxed"}, {"-p", "nodes"}, {"-p", "jit"}, {"-p", "flat"}, {"-p", "shared"}
+    };
+
+    private static final PrintStream DISCARD = new PrintStream(OutputStream.nullOutputStream());
+
+    private TrainingRun(){
+    }
+
+    /**
+     * @param rounds How many times to compile the made-up files; 1 is enough to load every class.
+     * @throws IOException if the files cannot be written to the temporary directory.
+     */
+    static void run(int rounds) throws IOException {
+        StringBuilder code = new StringBuilder();
+        for(int i = 0; i < 100; i++){
+            code.append("(").append(i).append(" + 2.5) * 3 - ").append(i % 7).append(" / 4 >= 1 ? \"a\" + ")
+                    .append(i).append(" : !false; /* comment */ -").append(i).append(" << 2 ** 2;\n");
+        }
+        Path clean = Files.createTempFile("training", ".lox");
+        Path broken = Files.createTempFile("training", ".lox");
+        try{
+            Files.write(clean, code.toString().getBytes(StandardCharsets.UTF_8));
+            Files.write(broken, (code + "1 + ; @ \"unclosed\n").getBytes(StandardCharsets.UTF_8));
+            for(int round = 0; round < rounds; round++){
+                compile(clean, 1);
+                compile(broken, 1);
+                if(round == 0){
+                    compile(clean, 2);
+                    for(String[] flags: FIRST_ROUND){
+                        compile(clean, 1, flags);
+                    }
+                }
+            }
+        } finally {
+            Files.deleteIfExists(clean);
+            Files.deleteIfExists(broken);
+        }
+    }
+
+    private static void compile(Path file, int threads, String... rawFlags){
+        CompilationContext context = new CompilationContext(CompilationContext.current().locale, DISCARD, false);
+        CompilationContext.run(context, () -> {
+            Flags flags = new Flags();
+            flags.parse(rawFlags);
+            context.measurePhases = flags.isSet(Flags.flagType.Report);
+            try{
+                Main.compile(file.toString(), flags, threads);
+            } catch (FatalCompileError e){
+                //The broken file stops at its syntax errors, as it should.
+            }
+        });
+    }
+}
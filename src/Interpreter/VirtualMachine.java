@@ -0,0 +1,223 @@
+package Interpreter;
+
+/**
+ * Runs the bytecode BytecodeCompiler makes, with a loop that switches on each opcode.
+ * The stack keeps numbers unboxed: a slot holding a number has the NUMBER marker in values and the number in
+ * numbers. Arithmetic on two numbers happens right there; anything else is boxed and handed to Operators,
+ * exactly as the Interpreter would do it.
+ */
+class VirtualMachine implements Engine {
+
+    private static final Object NUMBER = new Object();
+    private static final Lexer.TokenType[] TYPES = Lexer.TokenType.values();
+
+    @Override
+    public Program prepare(Expression expression){
+        Chunk chunk = new BytecodeCompiler().compile(expression);
+        return () -> run(chunk);
+    }
+
+    /**
+     * @param chunk The compiled expression.
+     * @return Its value.
+     */
+    Object run(Chunk chunk){
+        byte[] code = chunk.code;
+        double[] numbers = new double[chunk.maxStack];
+        Object[] values = new Object[chunk.maxStack];
+        int sp = 0;
+        int ip = 0;
+
+        while(true){
+            byte opcode = code[ip++];
+            switch(opcode){
+                case Chunk.NUMBER:
+                    numbers[sp] = chunk.numbers[(code[ip] & 0xFF) << 8 | code[ip + 1] & 0xFF];
+                    values[sp++] = NUMBER;
+                    ip += 2;
+                    break;
+                case Chunk.CONSTANT:
+                    values[sp++] = chunk.constants[(code[ip] & 0xFF) << 8 | code[ip + 1] & 0xFF];
+                    ip += 2;
+                    break;
+                case Chunk.NUMBER_WIDE:
+                    numbers[sp] = chunk.numbers[readInt(code, ip)];
+                    values[sp++] = NUMBER;
+                    ip += 4;
+                    break;
+                case Chunk.CONSTANT_WIDE:
+                    values[sp++] = chunk.constants[readInt(code, ip)];
+                    ip += 4;
+                    break;
+                case Chunk.ADD:
+                    if(values[sp - 2] == NUMBER && values[sp - 1] == NUMBER){
+                        sp--;
+                        numbers[sp - 1] += numbers[sp];
+                    } else {
+                        sp = binary(Lexer.TokenType.PLUS, numbers, values, sp);
+                    }
+                    break;
+                case Chunk.SUBTRACT:
+                    if(values[sp - 2] == NUMBER && values[sp - 1] == NUMBER){
+                        sp--;
+                        numbers[sp - 1] -= numbers[sp];
+                    } else {
+                        sp = binary(Lexer.TokenType.MINUS, numbers, values, sp);
+                    }
+                    break;
+                case Chunk.MULTIPLY:
+                    if(values[sp - 2] == NUMBER && values[sp - 1] == NUMBER){
+                        sp--;
+                        numbers[sp - 1] *= numbers[sp];
+                    } else {
+                        sp = binary(Lexer.TokenType.STAR, numbers, values, sp);
+                    }
+                    break;
+                case Chunk.DIVIDE:
+                    if(values[sp - 2] == NUMBER && values[sp - 1] == NUMBER){
+                        sp--;
+                        numbers[sp - 1] /= numbers[sp];
+                    } else {
+                        sp = binary(Lexer.TokenType.SLASH, numbers, values, sp);
+                    }
+                    break;
+                case Chunk.POWER:
+                    if(values[sp - 2] == NUMBER && values[sp - 1] == NUMBER){
+                        sp--;
+                        numbers[sp - 1] = Math.pow(numbers[sp - 1], numbers[sp]);
+                    } else {
+                        sp = binary(Lexer.TokenType.STAR_STAR, numbers, values, sp);
+                    }
+                    break;
+                case Chunk.GREATER:
+                    if(values[sp - 2] == NUMBER && values[sp - 1] == NUMBER){
+                        sp--;
+                        values[sp - 1] = numbers[sp - 1] > numbers[sp];
+                    } else {
+                        sp = binary(Lexer.TokenType.GREATER, numbers, values, sp);
+                    }
+                    break;
+                case Chunk.GREATER_EQUAL:
+                    if(values[sp - 2] == NUMBER && values[sp - 1] == NUMBER){
+                        sp--;
+                        values[sp - 1] = numbers[sp - 1] >= numbers[sp];
+                    } else {
+                        sp = binary(Lexer.TokenType.GREATER_EQUAL, numbers, values, sp);
+                    }
+                    break;
+                case Chunk.LESS:
+                    if(values[sp - 2] == NUMBER && values[sp - 1] == NUMBER){
+                        sp--;
+                        values[sp - 1] = numbers[sp - 1] < numbers[sp];
+                    } else {
+                        sp = binary(Lexer.TokenType.LESS, numbers, values, sp);
+                    }
+                    break;
+                case Chunk.LESS_EQUAL:
+                    if(values[sp - 2] == NUMBER && values[sp - 1] == NUMBER){
+                        sp--;
+                        values[sp - 1] = numbers[sp - 1] <= numbers[sp];
+                    } else {
+                        sp = binary(Lexer.TokenType.LESS_EQUAL, numbers, values, sp);
+                    }
+                    break;
+                case Chunk.EQUAL:
+                    //Compared as Double.equals does, which Operators.isEqual uses.
+                    if(values[sp - 2] == NUMBER && values[sp - 1] == NUMBER){
+                        sp--;
+                        values[sp - 1] = Double.doubleToLongBits(numbers[sp - 1]) == Double.doubleToLongBits(numbers[sp]);
+                    } else {
+                        sp = binary(Lexer.TokenType.EQUAL_EQUAL, numbers, values, sp);
+                    }
+                    break;
+                case Chunk.NOT_EQUAL:
+                    if(values[sp - 2] == NUMBER && values[sp - 1] == NUMBER){
+                        sp--;
+                        values[sp - 1] = Double.doubleToLongBits(numbers[sp - 1]) != Double.doubleToLongBits(numbers[sp]);
+                    } else {
+                        sp = binary(Lexer.TokenType.BANG_EQUAL, numbers, values, sp);
+                    }
+                    break;
+                case Chunk.LEFT_SHIFT:
+                    if(values[sp - 2] == NUMBER && values[sp - 1] == NUMBER){
+                        sp--;
+                        numbers[sp - 1] = (int) numbers[sp - 1] << (int) numbers[sp];
+                    } else {
+                        sp = binary(Lexer.TokenType.LEFT_SHIFT, numbers, values, sp);
+                    }
+                    break;
+                case Chunk.RIGHT_SHIFT:
+                    if(values[sp - 2] == NUMBER && values[sp - 1] == NUMBER){
+                        sp--;
+                        numbers[sp - 1] = (int) numbers[sp - 1] >> (int) numbers[sp];
+                    } else {
+                        sp = binary(Lexer.TokenType.RIGHT_SHIFT, numbers, values, sp);
+                    }
+                    break;
+                case Chunk.BINARY:
+                    sp = binary(TYPES[code[ip++]], numbers, values, sp);
+                    break;
+                case Chunk.NEGATE:
+                    if(values[sp - 1] == NUMBER){
+                        numbers[sp - 1] = -numbers[sp - 1];
+                    } else {
+                        set(numbers, values, sp - 1, Operators.unary(Lexer.TokenType.MINUS, get(numbers, values, sp - 1)));
+                    }
+                    break;
+                case Chunk.NOT:
+                    //The Interpreter gives the operand's truthiness here, not its negation.
+                    values[sp - 1] = values[sp - 1] == NUMBER || Operators.isTruthy(values[sp - 1]);
+                    break;
+                case Chunk.BITWISE_NOT:
+                    if(values[sp - 1] == NUMBER){
+                        numbers[sp - 1] = ~(int) numbers[sp - 1];
+                    } else {
+                        set(numbers, values, sp - 1, Operators.unary(Lexer.TokenType.B_NOT, get(numbers, values, sp - 1)));
+                    }
+                    break;
+                case Chunk.JUMP_IF_FALSE:
+                    sp--;
+                    if(values[sp] != NUMBER && !Operators.isTruthy(values[sp])){
+                        ip = readInt(code, ip);
+                    } else {
+                        ip += 4;
+                    }
+                    break;
+                case Chunk.JUMP:
+                    ip = readInt(code, ip);
+                    break;
+                case Chunk.RETURN:
+                    return get(numbers, values, sp - 1);
+                default:
+                    throw new IllegalStateException("Unknown opcode " + opcode + " at " + (ip - 1));
+            }
+        }
+    }
+
+    /**
+     * Applies a binary operator to the top two stack slots through Operators.
+     * @return The new stack pointer.
+     */
+    private static int binary(Lexer.TokenType operator, double[] numbers, Object[] values, int sp){
+        Object result = Operators.binary(operator, get(numbers, values, sp - 2), get(numbers, values, sp - 1));
+        set(numbers, values, sp - 2, result);
+        return sp - 1;
+    }
+
+    private static Object get(double[] numbers, Object[] values, int slot){
+        return values[slot] == NUMBER ? (Object) numbers[slot] : values[slot];
+    }
+
+    private static void set(double[] numbers, Object[] values, int slot, Object value){
+        if(value instanceof Double){
+            numbers[slot] = (double) value;
+            values[slot] = NUMBER;
+        } else {
+            values[slot] = value;
+        }
+    }
+
+    private static int readInt(byte[] code, int at){
+        return (code[at] & 0xFF) << 24 | (code[at + 1] & 0xFF) << 16 | (code[at + 2] & 0xFF) << 8 | code[at + 3] & 0xFF;
+    }
+}
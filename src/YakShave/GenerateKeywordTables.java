@@ -0,0 +1,182 @@
+package YakShave;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Writes KeywordTables.java: for every keywords_*.properties file, a perfect hash table of its keywords,
+ * found by trying seeds until no two keywords land in the same slot. Each table is in a holder class of its own,
+ * so only the tables of the locales in use are ever built.
+ */
+public class GenerateKeywordTables {
+
+    public static void main(String[] args) throws IOException {
+        String outputDir = "src/Interpreter";
+
+        //Property key : token type. Keys not listed here are not keywords yet.
+        defineTables(outputDir, "KeywordTables", "en_US", Arrays.asList(
+                "and      : AND",
+                "or       : OR",
+                "not      : BANG",
+                "class    : CLASS",
+                "if       : IF",
+                "else     : ELSE",
+                "true     : TRUE",
+                "false    : FALSE",
+                "nil      : NIL",
+                "function : FUNCTION",
+                "return   : RETURN",
+                "while    : WHILE",
+                "for      : FOR",
+                "print    : PRINT",
+                "super    : SUPER",
+                "this     : THIS",
+                "var      : VAR"
+        ));
+    }
+
+    private static void defineTables(
+            String outputDir, String className, String defaultLocale, List<String> keys
+    ) throws IOException {
+        Map<String, String> types = new LinkedHashMap<>();
+        for(String key: keys){
+            types.put(key.split(":")[0].trim(), key.split(":")[1].trim());
+        }
+
+        File[] files = new File(outputDir).listFiles((dir, name) -> name.matches("keywords_.*\\.properties"));
+        Arrays.sort(files);
+
+        PrintWriter writer = new PrintWriter(outputDir + "/" + className + ".java", "UTF-8");
+
+        writer.println("package Interpreter;");
+        writer.println();
+        writer.println("import java.util.Locale;");
+        writer.println();
+        writer.println("/**");
+        writer.println(" * A perfect hash KeywordTable for each keywords_*.properties file, each built the first time it is asked for.");
+        writer.println(" * Generated by YakShave.GenerateKeywordTables, do not edit by hand.");
+        writer.println(" */");
+        writer.println("final class " + className + " {");
+
+        List<String> locales = new ArrayList<>();
+        for(File file: files){
+            String locale = file.getName().substring("keywords_".length(), file.getName().length() - ".properties".length());
+            locales.add(locale);
+            defineTable(writer, locale, load(file), types);
+        }
+
+        writer.println();
+        writer.println("    /**");
+        writer.println("     * Picks the table for a locale, falling back to one with the same language, then to " + defaultLocale + ".");
+        writer.println("     * @param locale The locale of the source code.");
+        writer.println("     * @return The keywords of that locale.");
+        writer.println("     */");
+        writer.println("    static KeywordTable forLocale(Locale locale){");
+        writer.println("        switch(locale.toString()){");
+        for(String locale: locales){
+            writer.println("            case \"" + locale + "\": return " + holderName(locale) + ".TABLE;");
+        }
+        writer.println("        }");
+        writer.println("        switch(locale.getLanguage()){");
+        for(String locale: locales){
+            writer.println("            case \"" + locale.split("_")[0] + "\": return " + holderName(locale) + ".TABLE;");
+        }
+        writer.println("        }");
+        writer.println("        return " + holderName(defaultLocale) + ".TABLE;");
+        writer.println("    }");
+        writer.println("}");
+
+        writer.close();
+    }
+
+    private static void defineTable(
+            PrintWriter writer, String locale, Properties keywords, Map<String, String> types
+    ){
+        List<String> words = new ArrayList<>();
+        List<String> wordTypes = new ArrayList<>();
+        for(Map.Entry<String, String> entry: types.entrySet()){
+            words.add(keywords.getProperty(entry.getKey()).trim());
+            wordTypes.add(entry.getValue());
+        }
+
+        //Twice as many slots as words keeps the seed search short.
+        int size = Integer.highestOneBit(words.size() * 2 - 1) << 1;
+        int seed = 0;
+        int[] slots;
+        while((slots = place(words, seed, size - 1)) == null){
+            seed++;
+        }
+
+        String[] tableWords = new String[size];
+        String[] tableTypes = new String[size];
+        for(int i = 0; i < words.size(); i++){
+            tableWords[slots[i]] = words.get(i);
+            tableTypes[slots[i]] = wordTypes.get(i);
+        }
+
+        writer.println();
+        writer.println("    private static final class " + holderName(locale) + " {");
+        writer.println("        static final KeywordTable TABLE = new KeywordTable(\"" + locale + "\", " + seed + ",");
+        writer.println("                new char[][]{");
+        for(String word: tableWords){
+            writer.println("                        " + (word == null ? "null" : "\"" + word + "\".toCharArray()") + ",");
+        }
+        writer.println("                },");
+        writer.println("                new Lexer.TokenType[]{");
+        for(String type: tableTypes){
+            writer.println("                        " + (type == null ? "null" : "Lexer.TokenType." + type) + ",");
+        }
+        writer.println("                });");
+        writer.println("    }");
+    }
+
+    /**
+     * Tries to put every word in its own slot.
+     * @return The slot of each word, or null if two words collide with this seed.
+     */
+    private static int[] place(List<String> words, int seed, int mask){
+        int[] slots = new int[words.size()];
+        boolean[] taken = new boolean[mask + 1];
+        for(int i = 0; i < words.size(); i++){
+            int slot = hash(seed, words.get(i)) & mask;
+            if(taken[slot]){
+                return null;
+            }
+            taken[slot] = true;
+            slots[i] = slot;
+        }
+        return slots;
+    }
+
+    /**
+     * Must match Interpreter.KeywordTable.hash.
+     */
+    private static int hash(int seed, String text){
+        int h = seed;
+        for(int i = 0; i < text.length(); i++){
+            h = h * 31 + text.charAt(i);
+        }
+        return h ^ (h >>> 15);
+    }
+
+    private static Properties load(File file) throws IOException {
+        Properties properties = new Properties();
+        try(InputStream in = new FileInputStream(file)){
+            properties.load(in);
+        }
+        return properties;
+    }
+
+    private static String holderName(String locale){
+        return locale.toUpperCase();
+    }
+}
@@ -0,0 +1,223 @@
+package YakShave;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes LexerTables.java: character class flags for the Lexer, and a DFA that recognizes every
+ * operator (and comment opener) by longest match, so the Lexer never has to branch per character.
+ */
+public class GenerateLexerTables {
+
+    private static final String ACTION_TOKEN = "TOKEN";
+    private static final String ACTION_LINE_COMMENT = "LINE_COMMENT";
+    private static final String ACTION_BLOCK_COMMENT = "BLOCK_COMMENT";
+
+    public static void main(String[] args) throws IOException {
+        String outputDir = "src/Interpreter";
+
+        //Spelling : token type, or one of the comment actions.
+        defineTables(outputDir, "LexerTables", Arrays.asList(
+                "(  : LEFT_PAREN",
+                ")  : RIGHT_PAREN",
+                "{  : LEFT_BRACE",
+                "}  : RIGHT_BRACE",
+                ",  : COMMA",
+                ".  : DOT",
+                "-  : MINUS",
+                "+  : PLUS",
+                ";  : SEMICOLON",
+                "/  : SLASH",
+                "*  : STAR",
+                "** : STAR_STAR",
+                "<< : LEFT_SHIFT",
+                ">> : RIGHT_SHIFT",
+                "?  : QUESTION",
+                ":  : COLON",
+                "!  : BANG",
+                "!= : BANG_EQUAL",
+                "=  : EQUAL",
+                "== : EQUAL_EQUAL",
+                ">  : GREATER",
+                ">= : GREATER_EQUAL",
+                "<  : LESS",
+                "<= : LESS_EQUAL",
+                "|| : OR",
+                "&& : AND",
+                "|  : B_OR",
+                "&  : B_AND",
+                "|& : B_XOR",
+                "~  : B_NOT",
+                "~& : B_NAND",
+                "// : " + ACTION_LINE_COMMENT,
+                "/* : " + ACTION_BLOCK_COMMENT
+        ));
+    }
+
+    private static void defineTables(
+            String outputDir, String className, List<String> operators
+    ) throws IOException {
+        //Split "spelling : action" on the spaced colon, so that ":" itself can be a spelling.
+        Map<String, String> spellings = new LinkedHashMap<>();
+        for(String operator: operators){
+            int split = operator.indexOf(" : ");
+            String spelling = operator.substring(0, split).trim();
+            spellings.put(spelling, operator.substring(split + 3).trim());
+        }
+
+        //Columns: one per distinct operator character, column 0 is "no transition".
+        int[] column = new int[128];
+        List<Character> columnChars = new ArrayList<>();
+        for(String spelling: spellings.keySet()){
+            for(char c: spelling.toCharArray()){
+                if(column[c] == 0){
+                    columnChars.add(c);
+                    column[c] = columnChars.size();
+                }
+            }
+        }
+        int columns = columnChars.size() + 1;
+
+        //The operators are fixed strings, so the DFA is a trie. State 0 is dead, state 1 is the start.
+        List<int[]> transitions = new ArrayList<>();
+        List<String> accepts = new ArrayList<>();
+        transitions.add(new int[columns]);
+        accepts.add(null);
+        transitions.add(new int[columns]);
+        accepts.add(null);
+        for(Map.Entry<String, String> entry: spellings.entrySet()){
+            int state = 1;
+            for(char c: entry.getKey().toCharArray()){
+                int next = transitions.get(state)[column[c]];
+                if(next == 0){
+                    transitions.add(new int[columns]);
+                    accepts.add(null);
+                    next = transitions.size() - 1;
+                    transitions.get(state)[column[c]] = next;
+                }
+                state = next;
+            }
+            accepts.set(state, entry.getValue());
+        }
+
+        PrintWriter writer = new PrintWriter(outputDir + "/" + className + ".java", "UTF-8");
+
+        writer.println("package Interpreter;");
+        writer.println();
+        writer.println("/**");
+        writer.println(" * Character classes and the operator DFA used by the Lexer.");
+        writer.println(" * Generated by YakShave.GenerateLexerTables, do not edit by hand.");
+        writer.println(" */");
+        writer.println("final class " + className + " {");
+        writer.println();
+        writer.println("    static final byte ALPHA = 1;");
+        writer.println("    static final byte DIGIT = 2;");
+        writer.println("    static final byte SPACE = 4;");
+        writer.println("    static final byte OPERATOR = 8;");
+        writer.println();
+        writer.println("    static final byte ACTION_NONE = 0;");
+        writer.println("    static final byte ACTION_" + ACTION_TOKEN + " = 1;");
+        writer.println("    static final byte ACTION_" + ACTION_LINE_COMMENT + " = 2;");
+        writer.println("    static final byte ACTION_" + ACTION_BLOCK_COMMENT + " = 3;");
+        writer.println();
+        writer.println("    static final int START = 1;");
+        writer.println("    static final int COLUMNS = " + columns + ";");
+        writer.println();
+
+        writer.println("    /**");
+        writer.println("     * Flags for each ASCII character. Anything above 127 has no flags.");
+        writer.println("     */");
+        writer.println("    static final byte[] CHARACTER_FLAGS = {");
+        for(int c = 0; c < 128; c++){
+            List<String> flags = new ArrayList<>();
+            if((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || c == '_'){
+                flags.add("ALPHA");
+            }
+            if(c >= '0' && c <= '9'){
+                flags.add("DIGIT");
+            }
+            if(c == ' ' || c == '\r' || c == '\t'){
+                flags.add("SPACE");
+            }
+            if(column[c] != 0){
+                flags.add("OPERATOR");
+            }
+            String value = flags.isEmpty() ? "0" : String.join(" | ", flags);
+            writer.println("            " + value + ", //" + describe(c));
+        }
+        writer.println("    };");
+        writer.println();
+
+        writer.println("    /**");
+        writer.println("     * The DFA column for each ASCII character, 0 if no operator contains it.");
+        writer.println("     */");
+        writer.println("    static final byte[] COLUMN = new byte[128];");
+        writer.println();
+        writer.println("    static {");
+        for(int i = 0; i < columnChars.size(); i++){
+            writer.println("        COLUMN['" + escape(columnChars.get(i)) + "'] = " + (i + 1) + ";");
+        }
+        writer.println("    }");
+        writer.println();
+
+        writer.println("    /**");
+        writer.println("     * Next state, indexed by state * COLUMNS + column. State 0 is dead.");
+        writer.println("     */");
+        writer.println("    static final byte[] TRANSITIONS = {");
+        for(int state = 0; state < transitions.size(); state++){
+            StringBuilder row = new StringBuilder("            ");
+            for(int next: transitions.get(state)){
+                row.append(next).append(", ");
+            }
+            writer.println(row.toString().stripTrailing() + " //" + state);
+        }
+        writer.println("    };");
+        writer.println();
+
+        writer.println("    /**");
+        writer.println("     * What to do when the longest match ends in each state.");
+        writer.println("     */");
+        writer.println("    static final byte[] ACTIONS = {");
+        for(String accept: accepts){
+            String action = accept == null ? "ACTION_NONE"
+                    : accept.equals(ACTION_LINE_COMMENT) || accept.equals(ACTION_BLOCK_COMMENT) ? "ACTION_" + accept
+                    : "ACTION_" + ACTION_TOKEN;
+            writer.println("            " + action + ",");
+        }
+        writer.println("    };");
+        writer.println();
+
+        writer.println("    /**");
+        writer.println("     * The token type produced when the longest match ends in each state, if any.");
+        writer.println("     */");
+        writer.println("    static final Lexer.TokenType[] TOKENS = {");
+        for(String accept: accepts){
+            boolean isToken = accept != null
+                    && !accept.equals(ACTION_LINE_COMMENT) && !accept.equals(ACTION_BLOCK_COMMENT);
+            writer.println("            " + (isToken ? "Lexer.TokenType." + accept : "null") + ",");
+        }
+        writer.println("    };");
+        writer.println("}");
+
+        writer.close();
+    }
+
+    private static String describe(int c){
+        if(c == ' '){
+            return "space";
+        }
+        if(c < 32 || c == 127){
+            return "0x" + Integer.toHexString(c);
+        }
+        return String.valueOf((char) c);
+    }
+
+    private static String escape(char c){
+        return c == '\'' || c == '\\' ? "\\" + c : String.valueOf(c);
+    }
+}